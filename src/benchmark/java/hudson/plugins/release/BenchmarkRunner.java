@@ -0,0 +1,37 @@
+package hudson.plugins.release;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the benchmarks of the plugin, see the {@code benchmark} profile.
+ * <p>
+ * {@code -Dbenchmark.include=<regexp>} restricts the benchmarks to run, while
+ * {@code benchmark.forks}, {@code benchmark.warmupIterations} and
+ * {@code benchmark.iterations} tune the runs. Results are written to
+ * {@code target/jmh-result.json}.
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", "hudson\\.plugins\\.release\\..*Benchmark"))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .forks(Integer.getInteger("benchmark.forks", 1))
+                .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 5))
+                .measurementIterations(Integer.getInteger("benchmark.iterations", 5))
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+package hudson.plugins.release;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import hudson.model.Action;
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterValue;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+
+/**
+ * Base of the benchmark states, keeping a Jenkins instance up for a whole trial.
+ * <p>
+ * {@link JenkinsRule} only runs Jenkins around a JUnit statement, so the statement
+ * evaluated here just holds Jenkins up until the trial is torn down.
+ */
+@State(Scope.Benchmark)
+public abstract class JenkinsState {
+
+    protected JenkinsRule j;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile Throwable failure;
+    private Thread jenkinsThread;
+
+    @Setup(Level.Trial)
+    public final void startJenkins() throws Throwable {
+        // trials easily last longer than the default test timeout
+        System.setProperty("jenkins.test.timeout", "0");
+
+        j = new JenkinsRule();
+        final Statement statement = j.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                started.countDown();
+                finished.await();
+            }
+        }, Description.createTestDescription(getClass(), "benchmark"));
+
+        jenkinsThread = new Thread("Jenkins for " + getClass().getSimpleName()) {
+            @Override
+            public void run() {
+                try {
+                    statement.evaluate();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    started.countDown();
+                }
+            }
+        };
+        jenkinsThread.start();
+        started.await();
+        if (failure != null) {
+            throw failure;
+        }
+
+        setUp();
+    }
+
+    @TearDown(Level.Trial)
+    public final void stopJenkins() throws InterruptedException {
+        finished.countDown();
+        jenkinsThread.join();
+    }
+
+    /**
+     * Creates the synthetic jobs of the benchmark once Jenkins is up.
+     */
+    protected abstract void setUp() throws Exception;
+
+    /**
+     * Creates a job using the release wrapper with the given number of builds,
+     * one out of {@code releaseEvery} of them being a release build.
+     */
+    protected FreeStyleProject createReleaseJob(String name, int historySize, int releaseEvery) throws Exception {
+        return createReleaseJob(name, new ReleaseWrapper(), historySize, releaseEvery, new ArrayList<ParameterValue>());
+    }
+
+    protected FreeStyleProject createReleaseJob(String name, ReleaseWrapper wrapper, int historySize, int releaseEvery,
+            List<ParameterValue> releaseParameters) throws Exception {
+        FreeStyleProject project = j.createFreeStyleProject(name);
+        project.getBuildWrappersList().add(wrapper);
+
+        for (int i = 1; i <= historySize; i++) {
+            if (i % releaseEvery == 0) {
+                project.scheduleBuild2(0, new Cause.UserIdCause(), new Action[] {
+                        new ReleaseBuildBadgeAction(), new SafeParametersAction(releaseParameters) }).get();
+            } else {
+                project.scheduleBuild2(0).get();
+            }
+        }
+        return project;
+    }
+}
@@ -0,0 +1,90 @@
+package hudson.plugins.release;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import hudson.model.AbstractBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import hudson.plugins.release.ReleaseWrapper.ReleaseAction;
+
+/**
+ * Read paths of a single release job with a long history.
+ */
+public class ReleaseJobBenchmark {
+
+    public static class JobState extends JenkinsState {
+
+        @Param({"100", "1000"})
+        public int historySize;
+
+        @Param({"60"})
+        public int parameterCount;
+
+        FreeStyleProject project;
+        ReleaseWrapper wrapper;
+        ReleaseAction action;
+        AbstractBuild<?,?> lastRelease;
+        ParametersAction lastReleaseParameters;
+        String lastParameterName;
+
+        @Override
+        protected void setUp() throws Exception {
+            wrapper = new ReleaseWrapper();
+            wrapper.setReleaseVersionTemplate("$PARAM_0-$PARAM_" + (parameterCount - 1) + " of $JOB_NAME");
+
+            List<ParameterDefinition> definitions = new ArrayList<ParameterDefinition>();
+            List<ParameterValue> values = new ArrayList<ParameterValue>();
+            for (int i = 0; i < parameterCount; i++) {
+                definitions.add(new StringParameterDefinition("PARAM_" + i, "value " + i));
+                values.add(new StringParameterValue("PARAM_" + i, "value " + i));
+            }
+            wrapper.setParameterDefinitions(definitions);
+            lastParameterName = "PARAM_" + (parameterCount - 1);
+
+            project = createReleaseJob("job", wrapper, historySize, 10, values);
+            action = project.getAction(ReleaseAction.class);
+            lastRelease = (AbstractBuild<?,?>) ReleaseIndex.getLastRelease(project);
+            lastReleaseParameters = lastRelease.getAction(ParametersAction.class);
+        }
+    }
+
+    @Benchmark
+    public Run<?,?> lastReleaseBuild(JobState state) {
+        return state.project.getPermalinks().get("lastReleaseBuild").resolve(state.project);
+    }
+
+    @Benchmark
+    public Run<?,?> lastSuccessfulReleaseBuild(JobState state) {
+        return state.project.getPermalinks().get("lastSuccessfulReleaseBuild").resolve(state.project);
+    }
+
+    @Benchmark
+    public List<AbstractBuild> previousReleaseBuildsFirstPage(JobState state) {
+        return state.action.getPreviousReleaseBuilds(0, ReleaseAction.PREVIOUS_RELEASES_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<AbstractBuild> previousReleaseBuilds(JobState state) {
+        return state.action.getPreviousReleaseBuilds();
+    }
+
+    @Benchmark
+    public ParameterDefinition parameterDefinition(JobState state) {
+        return state.action.getParameterDefinition(state.lastParameterName);
+    }
+
+    @Benchmark
+    public String releaseVersion(JobState state) throws Exception {
+        return state.wrapper.computeReleaseVersion(state.lastRelease, state.lastReleaseParameters, TaskListener.NULL);
+    }
+}
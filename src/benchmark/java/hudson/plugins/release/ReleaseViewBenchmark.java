@@ -0,0 +1,47 @@
+package hudson.plugins.release;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import hudson.model.TopLevelItem;
+
+/**
+ * View job filters over an instance with many jobs, half of them release jobs.
+ */
+public class ReleaseViewBenchmark {
+
+    public static class ViewState extends JenkinsState {
+
+        @Param({"100", "3000"})
+        public int jobCount;
+
+        List<TopLevelItem> all;
+        List<TopLevelItem> added;
+
+        @Override
+        protected void setUp() throws Exception {
+            all = new ArrayList<TopLevelItem>();
+            added = new ArrayList<TopLevelItem>();
+            for (int i = 0; i < jobCount; i++) {
+                TopLevelItem job = i % 2 == 0 ? createReleaseJob("release" + i, 0, 1) : j.createFreeStyleProject("job" + i);
+                all.add(job);
+                if (i % 4 == 0) {
+                    added.add(job);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TopLevelItem> releaseJobsFilter(ViewState state) {
+        return new ReleaseJobsFilter().filter(state.all, state.all, null);
+    }
+
+    @Benchmark
+    public List<TopLevelItem> allReleaseJobsFilter(ViewState state) {
+        return new AllReleaseJobsFilter().filter(state.added, state.all, null);
+    }
+}
@@ -0,0 +1,41 @@
+package hudson.plugins.release.dashboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.plugins.release.JenkinsState;
+
+/**
+ * Recent releases aggregation across the jobs of a dashboard.
+ */
+public class RecentReleasesBenchmark {
+
+    public static class DashboardState extends JenkinsState {
+
+        @Param({"10", "100"})
+        public int jobCount;
+
+        @Param({"100"})
+        public int historySize;
+
+        List<Job> jobs;
+
+        @Override
+        protected void setUp() throws Exception {
+            jobs = new ArrayList<Job>();
+            for (int i = 0; i < jobCount; i++) {
+                jobs.add(createReleaseJob("job" + i, historySize, 5));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Run> recentReleases(DashboardState state) {
+        return RecentReleasesPortlet.computeRecentReleases(state.jobs, 50);
+    }
+}
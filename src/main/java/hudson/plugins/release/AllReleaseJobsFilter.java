@@ -30,7 +30,9 @@ import hudson.model.View;
 import hudson.views.ViewJobFilter;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.kohsuke.stapler.DataBoundConstructor;
 
@@ -48,18 +50,16 @@ public class AllReleaseJobsFilter extends ViewJobFilter {
 
 	@Override
 	public List<TopLevelItem> filter(List<TopLevelItem> added, List<TopLevelItem> all, View filteringView) {
-		final List<TopLevelItem> selection = new ArrayList<TopLevelItem>(added);
+		final Set<TopLevelItem> selection = new LinkedHashSet<TopLevelItem>(added);
 
 		// Complete the incoming added list with all jobs using the 'release' wrapper
 		for (final TopLevelItem item : all) {
 			if (ViewJobFilterUtils.isReleaseJob(item)) {
-				if (!selection.contains(item)) {
-					selection.add(item);
-				}
+				selection.add(item);
 			}
 		}
 
-		return selection;
+		return new ArrayList<TopLevelItem>(selection);
 	}
 
 	@Extension
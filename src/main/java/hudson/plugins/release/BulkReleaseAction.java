@@ -0,0 +1,178 @@
+package hudson.plugins.release;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.ParameterValue;
+import hudson.model.Queue;
+import hudson.model.RootAction;
+import hudson.plugins.release.ReleaseWrapper.ReleaseAction;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Jenkins-wide endpoint releasing many jobs in a single request.
+ * <p>
+ * A POST to {@code release/bulk} carries a JSON document like
+ * <pre>
+ * {"releases": [
+ *     {"job": "folder/service-a", "parameter": [{"name": "VERSION", "value": "1.0"}]},
+ *     {"job": "service-b", "releaseVersion": "2.1", "developmentVersion": "2.2-SNAPSHOT"}
+ * ]}
+ * </pre>
+ * where each entry is submitted the same way as through the release page of
+ * the job. All entries are validated before anything gets scheduled, and if
+ * the queue still refuses one of the releases, the releases queued by the
+ * request are cancelled and it fails with {@code 409 Conflict}, so either
+ * every release is queued or none is. The response lists the queue item id of
+ * each release, in request order, telling apart the releases merged into an
+ * identical one already waiting in the queue.
+ *
+ * @since 2.7
+ */
+@Extension
+public class BulkReleaseAction implements RootAction {
+
+    public String getIconFileName() {
+        return null;
+    }
+
+    public String getDisplayName() {
+        return null;
+    }
+
+    public String getUrlName() {
+        return "release";
+    }
+
+    @RequirePOST
+    public HttpResponse doBulk(StaplerRequest req) throws IOException, ServletException {
+        JSONArray entries;
+        try {
+            entries = JSONObject.fromObject(IOUtils.toString(req.getReader())).getJSONArray("releases");
+        } catch (JSONException e) {
+            return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, null, "Malformed request: " + e.getMessage());
+        }
+
+        // validate everything first, a train is released as a whole or not at all
+        final List<Release> releases = new ArrayList<Release>(entries.size());
+        Set<String> jobNames = new HashSet<String>();
+        for (Object o : entries) {
+            if (!(o instanceof JSONObject)) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, null, "Malformed release entry: " + o);
+            }
+            JSONObject entry = (JSONObject) o;
+            String jobName = entry.optString("job", null);
+            if (jobName == null) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, null, "Release entry without a job: " + entry);
+            }
+            if (!jobNames.add(jobName)) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, jobName, "Job listed more than once");
+            }
+
+            AbstractProject<?,?> project = Jenkins.getActiveInstance().getItemByFullName(jobName, AbstractProject.class);
+            if (project == null) {
+                return JsonResponses.error(HttpServletResponse.SC_NOT_FOUND, jobName, "No such job");
+            }
+            ReleaseAction action = project.getAction(ReleaseAction.class);
+            if (action == null) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, jobName, "Job is not configured for releases");
+            }
+            ReleaseWrapper.checkReleasePermission(project);
+            if (!project.isBuildable()) {
+                return JsonResponses.error(HttpServletResponse.SC_CONFLICT, jobName, "Job is not buildable");
+            }
+
+            List<ParameterValue> parameters;
+            try {
+                parameters = action.createParameterValues(req, entry);
+            } catch (IllegalArgumentException e) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, jobName, e.getMessage());
+            } catch (JSONException e) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, jobName, "Malformed parameters: " + e.getMessage());
+            }
+            releases.add(new Release(project, action, parameters));
+        }
+
+        // schedule the whole batch under a single queue lock
+        final Cause cause = new Cause.UserIdCause();
+        final Release[] refused = new Release[1];
+        Queue.withLock(new Runnable() {
+            public void run() {
+                for (Release release : releases) {
+                    release.result = release.action.scheduleRelease(cause, release.parameters);
+                    if (release.result.getItem() == null) {
+                        // e.g. a vetoing QueueDecisionHandler
+                        refused[0] = release;
+                        cancel(releases);
+                        return;
+                    }
+                }
+            }
+        });
+        if (refused[0] != null) {
+            Release release = refused[0];
+            return JsonResponses.error(HttpServletResponse.SC_CONFLICT, release.project.getFullName(),
+                    Messages.ReleaseWrapper_ReleaseNotScheduled(release.project.getFullDisplayName()));
+        }
+
+        JSONArray scheduled = new JSONArray();
+        for (Release release : releases) {
+            JSONObject o = new JSONObject();
+            o.put("job", release.project.getFullName());
+            o.put("queueId", release.result.getItem().getId());
+            // whether an identical release already waiting in the queue absorbed this one
+            o.put("coalesced", !release.result.isCreated());
+            scheduled.add(o);
+        }
+        JSONObject result = new JSONObject();
+        result.put("releases", scheduled);
+        return JsonResponses.json(HttpServletResponse.SC_OK, null, result);
+    }
+
+    /**
+     * Cancels the releases the request queued so far. Releases merged into an
+     * identical one already waiting in the queue are left alone, as that one
+     * was not queued by the request.
+     */
+    private static void cancel(List<Release> releases) {
+        Queue queue = Jenkins.getActiveInstance().getQueue();
+        for (Release release : releases) {
+            if (release.result == null || release.result.getItem() == null) {
+                return;
+            }
+            if (release.result.isCreated()) {
+                queue.cancel(release.result.getItem());
+            }
+        }
+    }
+
+    private static final class Release {
+        final AbstractProject<?,?> project;
+        final ReleaseAction action;
+        final List<ParameterValue> parameters;
+        Queue.ScheduleResult result;
+
+        Release(AbstractProject<?,?> project, ReleaseAction action, List<ParameterValue> parameters) {
+            this.project = project;
+            this.action = action;
+            this.parameters = parameters;
+        }
+    }
+}
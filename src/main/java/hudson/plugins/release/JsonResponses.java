@@ -0,0 +1,55 @@
+package hudson.plugins.release;
+
+import java.io.IOException;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.ServletException;
+
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import net.sf.json.JSONObject;
+
+/**
+ * JSON responses of the release REST endpoints.
+ *
+ * @since 2.7
+ */
+final class JsonResponses {
+
+    private JsonResponses() {
+    }
+
+    /**
+     * Responds with the given status and JSON document.
+     *
+     * @param location URL sent as the {@code Location} header, if any
+     */
+    static HttpResponse json(final int status, @CheckForNull final String location, final JSONObject body) {
+        return new HttpResponse() {
+            public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
+                rsp.setStatus(status);
+                if (location != null) {
+                    rsp.setHeader("Location", location);
+                }
+                rsp.setContentType("application/json;charset=UTF-8");
+                rsp.getWriter().print(body.toString());
+            }
+        };
+    }
+
+    /**
+     * Responds with the given error status and message.
+     *
+     * @param jobName full name of the job the error is about, if any
+     */
+    static HttpResponse error(int status, @CheckForNull String jobName, String message) {
+        JSONObject o = new JSONObject();
+        if (jobName != null) {
+            o.put("job", jobName);
+        }
+        o.put("message", message);
+        return json(status, null, o);
+    }
+}
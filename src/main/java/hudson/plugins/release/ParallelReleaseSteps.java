@@ -0,0 +1,186 @@
+package hudson.plugins.release;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.StaplerRequest;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.BuildListener;
+import hudson.model.Computer;
+import hudson.model.Descriptor;
+import hudson.model.Executor;
+import hudson.model.StreamBuildListener;
+import hudson.security.ACL;
+import hudson.tasks.BuildStep;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+/**
+ * Group of release steps which are performed concurrently, for independent
+ * steps such as uploads of the same artifacts to several repositories.
+ * <p>
+ * The grouped steps are prepared one after the other like any step list of the
+ * {@link ReleaseWrapper}, then all of them are performed at once. The group
+ * succeeds if every step does, and always waits for all of its steps so that
+ * none is left running behind the build. The console output of each step is
+ * buffered and written as one block per step, in configuration order.
+ * <p>
+ * The steps run on threads of their own, impersonating the executor of the
+ * build, so that {@link Executor#currentExecutor()} and
+ * {@link Computer#currentComputer()} are the same as for sequential steps.
+ * The group is only offered within the release step lists.
+ *
+ * @since 2.7
+ */
+public class ParallelReleaseSteps extends Builder {
+
+    private final List<BuildStep> steps;
+
+    @DataBoundConstructor
+    public ParallelReleaseSteps(List<BuildStep> steps) {
+        this.steps = steps != null ? new ArrayList<BuildStep>(steps) : new ArrayList<BuildStep>();
+    }
+
+    public List<BuildStep> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    @Override
+    public boolean prebuild(AbstractBuild<?, ?> build, BuildListener listener) {
+        for (BuildStep step : steps) {
+            if (!step.prebuild(build, listener)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean perform(final AbstractBuild<?, ?> build, final Launcher launcher, BuildListener listener)
+            throws InterruptedException, IOException {
+        if (steps.size() < 2) {
+            for (BuildStep step : steps) {
+                if (!step.perform(build, launcher, listener)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<ByteArrayOutputStream> outputs = new ArrayList<ByteArrayOutputStream>(steps.size());
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(steps.size());
+        for (final BuildStep step : steps) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final BuildListener stepListener = new StreamBuildListener(output, build.getCharset());
+            outputs.add(output);
+            results.add(submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return step.perform(build, launcher, stepListener);
+                }
+            }));
+        }
+
+        boolean shouldContinue = true;
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < steps.size(); i++) {
+                listener.getLogger().println("[" + ReleaseWrapperHelper.getDisplayName(steps.get(i)) + "]");
+                try {
+                    shouldContinue &= results.get(i).get();
+                } catch (ExecutionException e) {
+                    shouldContinue = false;
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+                outputs.get(i).writeTo(listener.getLogger());
+            }
+        } finally {
+            // only reached with steps still running when the build got aborted
+            for (Future<Boolean> result : results) {
+                result.cancel(true);
+            }
+        }
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof InterruptedException) {
+            throw (InterruptedException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        return shouldContinue;
+    }
+
+    /**
+     * Runs the given task on the shared thread pool of Jenkins, as the current
+     * user and in the context of the current executor. The pool is the one
+     * Jenkins manages, rather than one more pool of the plugin left behind on
+     * shutdown.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Future<T> submit(Callable<T> task) {
+        final Authentication authentication = Jenkins.getAuthentication();
+        Executor executor = Executor.currentExecutor();
+        final Callable<T> impersonating = executor != null ? executor.newImpersonatingProxy(Callable.class, task) : task;
+        return Computer.threadPoolForRemoting.submit(new Callable<T>() {
+            public T call() throws Exception {
+                SecurityContext previous = ACL.impersonate(authentication);
+                try {
+                    return impersonating.call();
+                } finally {
+                    SecurityContextHolder.setContext(previous);
+                }
+            }
+        });
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
+
+        @Override
+        public String getDisplayName() {
+            return Messages.ParallelReleaseSteps_DisplayName();
+        }
+
+        /**
+         * Not offered in the build steps of jobs, {@link ReleaseStepDescriptors}
+         * adds it to the release step lists.
+         */
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return false;
+        }
+
+        @Override
+        public Builder newInstance(StaplerRequest req, JSONObject formData) throws FormException {
+            List<BuildStep> steps = Descriptor.newInstancesFromHeteroList(req, formData, "steps",
+                    ReleaseWrapper.DescriptorImpl.getSteps());
+            return new ParallelReleaseSteps(steps);
+        }
+    }
+}
@@ -25,19 +25,64 @@ package hudson.plugins.release;
 
 import hudson.Extension;
 import hudson.model.Job;
-import hudson.plugins.release.ReleaseWrapper.ReleaseAction;
+import hudson.security.ACL;
 import hudson.views.ListViewColumnDescriptor;
 import hudson.views.ListViewColumn;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
 
 public class ReleaseButtonColumn extends ListViewColumn {
+    /**
+     * Request attribute holding the release permission by ACL while a view is rendered.
+     */
+    private static final String PERMISSION_CACHE = ReleaseButtonColumn.class.getName() + ".permissions";
+
     @DataBoundConstructor
     public ReleaseButtonColumn() {
     }
 
+    /**
+     * Tells whether the given job is configured for releases, without
+     * building the actions of the job.
+     *
+     * @see ReleaseJobRegistry
+     */
     public boolean isReleaseConfigured(Job job){
-        return job.getAction(ReleaseAction.class) != null;
+        return ReleaseJobRegistry.isReleaseJob(job);
+    }
+
+    /**
+     * Tells whether the current user may release the given job.
+     * <p>
+     * Jobs usually share the ACL of their parent or of Jenkins itself, so the
+     * permission is only checked once per ACL and page.
+     *
+     * @since 2.7
+     */
+    public boolean hasReleasePermission(Job job) {
+        ACL acl = job.getACL();
+        StaplerRequest req = Stapler.getCurrentRequest();
+        if (req == null) {
+            return acl.hasPermission(ReleaseWrapper.RELEASE_PERMISSION);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<ACL, Boolean> permissions = (Map<ACL, Boolean>) req.getAttribute(PERMISSION_CACHE);
+        if (permissions == null) {
+            permissions = new IdentityHashMap<ACL, Boolean>();
+            req.setAttribute(PERMISSION_CACHE, permissions);
+        }
+        Boolean permission = permissions.get(acl);
+        if (permission == null) {
+            permission = acl.hasPermission(ReleaseWrapper.RELEASE_PERMISSION);
+            permissions.put(acl, permission);
+        }
+        return permission;
     }
 
     @Extension
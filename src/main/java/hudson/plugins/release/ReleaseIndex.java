@@ -0,0 +1,388 @@
+package hudson.plugins.release;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+import jenkins.model.Jenkins;
+
+/**
+ * Index of the release builds of a job, stored as {@value #FILE_NAME} next to the
+ * job configuration.
+ * <p>
+ * Build records are loaded lazily, so finding release builds by walking
+ * {@link Job#getBuilds()} means deserializing every build of the job. This index
+ * keeps the number, start time, result and queue item id of each release build
+ * so that lookups only ever load the release builds they return.
+ *
+ * @since 2.7
+ */
+public final class ReleaseIndex {
+    private static final Logger LOGGER = Logger.getLogger(ReleaseIndex.class.getName());
+
+    static final String FILE_NAME = "release-index.xml";
+
+    /**
+     * Loaded indexes, guarded by itself.
+     */
+    private static final Map<Job<?,?>, ReleaseIndex> INDEXES = new WeakHashMap<Job<?,?>, ReleaseIndex>();
+
+    /**
+     * Whether the index was read or rebuilt. It keeps no reference to its job,
+     * which would keep the weak key of {@link #INDEXES} from ever clearing.
+     */
+    private transient volatile boolean loaded;
+
+    /**
+     * Bumped whenever the completed release builds of this index change, so
+     * that views derived from it know when to recompute.
+     */
+    private transient volatile long modifications;
+
+    /**
+     * Release builds by build number.
+     */
+    private final TreeMap<Integer, Entry> releases = new TreeMap<Integer, Entry>();
+
+    private ReleaseIndex() {
+    }
+
+    /**
+     * Gets the index of the given job, building it from the build history
+     * the first time it is requested for a job that has none yet.
+     */
+    @Nonnull
+    public static ReleaseIndex get(@Nonnull Job<?,?> job) {
+        ReleaseIndex index;
+        synchronized (INDEXES) {
+            index = INDEXES.get(job);
+            if (index == null) {
+                index = new ReleaseIndex();
+                INDEXES.put(job, index);
+            }
+        }
+        // loaded under the lock of the index only, rebuilding an index may walk a long history
+        if (!index.loaded) {
+            index.load(job);
+        }
+        return index;
+    }
+
+    /**
+     * @return the most recent release build of the given job, including one still in progress
+     */
+    @CheckForNull
+    public static Run<?,?> getLastRelease(@Nonnull Job<?,?> job) {
+        return get(job).resolve(job, false);
+    }
+
+    /**
+     * @return the most recent release build of the given job which completed successfully
+     */
+    @CheckForNull
+    public static Run<?,?> getLastSuccessfulRelease(@Nonnull Job<?,?> job) {
+        return get(job).resolve(job, true);
+    }
+
+    /**
+     * @return a counter changing whenever a completed release build of the job
+     *         is recorded, changes or is removed, but not as releases start
+     */
+    public long getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Tells whether the given run is a release build, that is, a build
+     * carrying a {@link ReleaseBuildBadgeAction}.
+     */
+    static boolean isRelease(Run<?,?> run) {
+        return run.getAction(ReleaseBuildBadgeAction.class) != null;
+    }
+
+    private static XmlFile getFile(Job<?,?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(job.getRootDir(), FILE_NAME));
+    }
+
+    /**
+     * Reads the index of the given job, or builds it from the build history,
+     * unless it was already.
+     */
+    private synchronized void load(Job<?,?> job) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        XmlFile file = getFile(job);
+        if (file.exists()) {
+            try {
+                file.unmarshal(this);
+                return;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to load " + file + ", rebuilding it", e);
+            }
+        }
+
+        releases.clear();
+        for (Run<?,?> run : job.getBuilds()) {
+            if (isRelease(run)) {
+                releases.put(run.getNumber(), new Entry(run));
+            }
+        }
+        try {
+            save(job);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the release index of " + job.getFullName(), e);
+        }
+    }
+
+    /**
+     * Records the given release run, or updates its entry once it has completed.
+     */
+    public synchronized void record(@Nonnull Run<?,?> run) throws IOException {
+        Entry entry = new Entry(run);
+        Entry previous = releases.put(run.getNumber(), entry);
+        if (entry.isCompleted() || (previous != null && previous.isCompleted())) {
+            modifications++;
+        }
+        save(run.getParent());
+    }
+
+    /**
+     * Forgets the release build of the given job with the given number.
+     *
+     * @return whether the build was indexed
+     */
+    public synchronized boolean remove(@Nonnull Job<?,?> job, int number) throws IOException {
+        Entry removed = releases.remove(number);
+        if (removed == null) {
+            return false;
+        }
+        if (removed.isCompleted()) {
+            modifications++;
+        }
+        save(job);
+        return true;
+    }
+
+    /**
+     * Tells whether the build with the given number is a release build.
+     */
+    public synchronized boolean contains(int number) {
+        return releases.containsKey(number);
+    }
+
+    /**
+     * @return the number of indexed release builds
+     */
+    public synchronized int size() {
+        return releases.size();
+    }
+
+    /**
+     * Gets one page of release build numbers, newest first.
+     *
+     * @param offset number of releases to skip
+     * @param limit maximum number of releases to return
+     */
+    @Nonnull
+    public synchronized List<Integer> getNumbers(int offset, int limit) {
+        List<Integer> numbers = new ArrayList<Integer>(Math.max(0, Math.min(limit, releases.size())));
+        int i = 0;
+        for (Integer number : releases.descendingKeySet()) {
+            if (numbers.size() >= limit) {
+                break;
+            }
+            if (i++ >= offset) {
+                numbers.add(number);
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Gets the number of the release build started from the queue item with
+     * the given id.
+     *
+     * @return null if no indexed release build has that queue item id
+     */
+    @CheckForNull
+    public synchronized Integer getNumberByQueueId(long queueId) {
+        for (Entry entry : releases.descendingMap().values()) {
+            if (entry.getQueueId() == queueId) {
+                return entry.getNumber();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the newest completed release build older than the given build number.
+     * Walking a job's releases newest first starts from {@link Integer#MAX_VALUE}.
+     */
+    @CheckForNull
+    public synchronized Entry getPreviousCompleted(int number) {
+        for (Entry entry : releases.headMap(number, false).descendingMap().values()) {
+            if (entry.isCompleted()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private Run<?,?> resolve(Job<?,?> job, boolean successfulOnly) {
+        Integer number = Integer.MAX_VALUE;
+        while ((number = lower(number, successfulOnly)) != null) {
+            Run<?,?> run = job.getBuildByNumber(number);
+            if (run != null) {
+                return run;
+            }
+
+            // the build went away without us being told, e.g. deleted from disk
+            try {
+                remove(job, number);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to save the release index of " + job.getFullName(), e);
+            }
+        }
+        return null;
+    }
+
+    private synchronized Integer lower(int number, boolean successfulOnly) {
+        for (Entry entry : releases.headMap(number, false).descendingMap().values()) {
+            if (!successfulOnly || entry.getResult() == Result.SUCCESS) {
+                return entry.getNumber();
+            }
+        }
+        return null;
+    }
+
+    private synchronized void save(Job<?,?> job) throws IOException {
+        getFile(job).write(this);
+    }
+
+    /**
+     * One indexed release build.
+     */
+    public static final class Entry {
+        private final int number;
+        private final long timestamp;
+        /**
+         * Name of the build result, null while the build is in progress.
+         */
+        private final String result;
+        /**
+         * Id of the queue item the build was started from, 0 if unknown.
+         */
+        private final long queueId;
+
+        Entry(Run<?,?> run) {
+            this.number = run.getNumber();
+            this.timestamp = run.getTimeInMillis();
+            this.queueId = run.getQueueId();
+            Result r = run.getResult();
+            this.result = r != null ? r.toString() : null;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return the time the build was scheduled, as per {@link Run#getTimeInMillis()}
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the id of the queue item the build was started from, as per {@link Run#getQueueId()}
+         */
+        public long getQueueId() {
+            return queueId;
+        }
+
+        public boolean isCompleted() {
+            return result != null;
+        }
+
+        @CheckForNull
+        public Result getResult() {
+            return result != null ? Result.fromString(result) : null;
+        }
+    }
+
+    /**
+     * Keeps the indexes current as release builds start, complete and get deleted.
+     */
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?,?>> {
+
+        @Override
+        public void onStarted(Run<?,?> run, TaskListener listener) {
+            update(run);
+        }
+
+        @Override
+        public void onCompleted(Run<?,?> run, @Nonnull TaskListener listener) {
+            update(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?,?> run) {
+            if (isRelease(run)) {
+                try {
+                    get(run.getParent()).remove(run.getParent(), run.getNumber());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to save the release index of " + run.getParent().getFullName(), e);
+                }
+            }
+        }
+
+        private void update(Run<?,?> run) {
+            if (isRelease(run)) {
+                try {
+                    get(run.getParent()).record(run);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to save the release index of " + run.getParent().getFullName(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the indexes of deleted jobs.
+     */
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof Job) {
+                synchronized (INDEXES) {
+                    INDEXES.remove(item);
+                }
+            }
+        }
+    }
+}
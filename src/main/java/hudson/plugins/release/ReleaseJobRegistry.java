@@ -0,0 +1,137 @@
+package hudson.plugins.release;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.BuildableItemWithBuildWrappers;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+
+/**
+ * Registry of the jobs configured to use the {@link ReleaseWrapper}, so that
+ * views can tell release jobs apart without going through the build wrappers
+ * of every job they render.
+ * <p>
+ * Jobs are tracked by full name and the registry is updated as job
+ * configurations are loaded, saved, renamed, moved and deleted. Until all
+ * items are loaded the build wrappers are checked directly.
+ *
+ * @since 2.7
+ */
+@Restricted(NoExternalUse.class)
+public final class ReleaseJobRegistry {
+
+    private static final Set<String> RELEASE_JOBS = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private static volatile boolean loaded;
+
+    private ReleaseJobRegistry() {
+    }
+
+    /**
+     * Tells whether the given item is a release job, that is, a job
+     * configured to use the 'release' build wrapper.
+     */
+    public static boolean isReleaseJob(Item item) {
+        if (!loaded) {
+            return hasReleaseWrapper(item);
+        }
+        return RELEASE_JOBS.contains(item.getFullName());
+    }
+
+    private static boolean hasReleaseWrapper(Item item) {
+        return item instanceof BuildableItemWithBuildWrappers
+                && ((BuildableItemWithBuildWrappers) item).getBuildWrappersList().get(ReleaseWrapper.class) != null;
+    }
+
+    private static void update(Item item) {
+        if (hasReleaseWrapper(item)) {
+            RELEASE_JOBS.add(item.getFullName());
+        } else {
+            RELEASE_JOBS.remove(item.getFullName());
+        }
+    }
+
+    /**
+     * Removes the given item along with everything it may contain.
+     */
+    private static void remove(String fullName) {
+        RELEASE_JOBS.remove(fullName);
+        String prefix = fullName + '/';
+        for (Iterator<String> it = RELEASE_JOBS.iterator(); it.hasNext(); ) {
+            if (it.next().startsWith(prefix)) {
+                it.remove();
+            }
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins == null) {
+                return;
+            }
+            RELEASE_JOBS.clear();
+            for (Item item : jenkins.getAllItems(Item.class)) {
+                update(item);
+            }
+            loaded = true;
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            update(item);
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            update(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            update(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            // called for each item within a moved folder as well
+            if (RELEASE_JOBS.remove(oldFullName)) {
+                RELEASE_JOBS.add(newFullName);
+            }
+        }
+    }
+
+    /**
+     * Catches configuration changes which are saved without going through
+     * {@link ItemListener#onUpdated(Item)}, e.g. programmatic ones.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Item) {
+                update((Item) o);
+            }
+        }
+    }
+}
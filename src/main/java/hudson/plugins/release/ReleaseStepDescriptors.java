@@ -0,0 +1,108 @@
+package hudson.plugins.release;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import hudson.ExtensionListListener;
+import hudson.model.AbstractProject;
+import hudson.model.Descriptor;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.tasks.Publisher;
+import jenkins.model.Jenkins;
+
+/**
+ * Descriptors of the builders and publishers usable as release steps, listed
+ * once rather than on each rendering and submission of a release configuration.
+ * <p>
+ * The lists are dropped whenever the builders or publishers change, e.g. when
+ * a plugin is installed without a restart. They include {@link ParallelReleaseSteps},
+ * which is not applicable to the build steps of any job.
+ *
+ * @since 2.7
+ */
+final class ReleaseStepDescriptors {
+
+    private static volatile Cache cache;
+
+    /**
+     * Jenkins instance whose descriptor lists are listened to.
+     */
+    private static WeakReference<Jenkins> listened = new WeakReference<Jenkins>(null);
+
+    private ReleaseStepDescriptors() {
+    }
+
+    /**
+     * @return the descriptors of all publishers, then of all builders
+     */
+    static List<Descriptor> all() {
+        return cache().all;
+    }
+
+    /**
+     * @return the descriptors of the publishers, then of the builders, applicable to the given type of project
+     */
+    static List<Descriptor> applicableTo(Class<? extends AbstractProject> type) {
+        Cache c = cache();
+        List<Descriptor> descriptors = c.byType.get(type);
+        if (descriptors == null) {
+            List<Descriptor> list = new ArrayList<Descriptor>();
+            list.addAll(BuildStepDescriptor.filter(Publisher.all(), type));
+            list.addAll(BuildStepDescriptor.filter(Builder.all(), type));
+            Descriptor parallel = Jenkins.getActiveInstance().getDescriptor(ParallelReleaseSteps.class);
+            if (parallel != null && !list.contains(parallel)) {
+                list.add(parallel);
+            }
+            descriptors = Collections.unmodifiableList(list);
+            c.byType.putIfAbsent(type, descriptors);
+        }
+        return descriptors;
+    }
+
+    private static Cache cache() {
+        Jenkins jenkins = Jenkins.getActiveInstance();
+        Cache c = cache;
+        if (c != null && c.jenkins == jenkins) {
+            return c;
+        }
+        synchronized (ReleaseStepDescriptors.class) {
+            if (listened.get() != jenkins) {
+                Publisher.all().addListener(INVALIDATE);
+                Builder.all().addListener(INVALIDATE);
+                listened = new WeakReference<Jenkins>(jenkins);
+            }
+            c = cache;
+            if (c == null || c.jenkins != jenkins) {
+                c = new Cache(jenkins);
+                cache = c;
+            }
+            return c;
+        }
+    }
+
+    private static final ExtensionListListener INVALIDATE = new ExtensionListListener() {
+        @Override
+        public void onChange() {
+            cache = null;
+        }
+    };
+
+    private static final class Cache {
+        final Jenkins jenkins;
+        final List<Descriptor> all;
+        final ConcurrentMap<Class<?>, List<Descriptor>> byType = new ConcurrentHashMap<Class<?>, List<Descriptor>>();
+
+        Cache(Jenkins jenkins) {
+            this.jenkins = jenkins;
+            List<Descriptor> list = new ArrayList<Descriptor>();
+            list.addAll(Publisher.all());
+            list.addAll(Builder.all());
+            this.all = Collections.unmodifiableList(list);
+        }
+    }
+}
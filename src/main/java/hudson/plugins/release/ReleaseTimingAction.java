@@ -0,0 +1,222 @@
+package hudson.plugins.release;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import org.jvnet.localizer.Localizable;
+
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Run;
+
+/**
+ * Wall-clock timings of the phases of a release build, and of each release
+ * step within them.
+ * <p>
+ * The timings are shown on the build page and on the release page, and are
+ * exported through the remote API of the build. Phases are recorded and
+ * exported by {@link PhaseId}, which does not depend on the locale.
+ *
+ * @since 2.7
+ */
+@ExportedBean(defaultVisibility = 2)
+public class ReleaseTimingAction implements Action {
+
+    private final List<Phase> phases = new CopyOnWriteArrayList<Phase>();
+
+    /**
+     * Gets the timings of the given build, attaching them first if needed.
+     */
+    @Nonnull
+    public static ReleaseTimingAction of(@Nonnull Run<?,?> run) {
+        synchronized (run) {
+            ReleaseTimingAction action = run.getAction(ReleaseTimingAction.class);
+            if (action == null) {
+                action = new ReleaseTimingAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    /**
+     * Starts timing a phase, which lasts until {@link Phase#end()}.
+     */
+    @Nonnull
+    public Phase start(@Nonnull PhaseId id) {
+        return start(id, null);
+    }
+
+    /**
+     * Starts timing a phase run for one matrix configuration, which lasts until {@link Phase#end()}.
+     *
+     * @param configuration name of the configuration, null for the build as a whole
+     */
+    @Nonnull
+    public Phase start(@Nonnull PhaseId id, @CheckForNull String configuration) {
+        Phase phase = new Phase(id, configuration);
+        phases.add(phase);
+        return phase;
+    }
+
+    @Exported
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    @CheckForNull
+    public Phase getPhase(PhaseId id) {
+        for (Phase phase : phases) {
+            if (phase.getId() == id) {
+                return phase;
+            }
+        }
+        return null;
+    }
+
+    public String getIconFileName() { return null; }
+    public String getDisplayName() { return null; }
+    public String getUrlName() { return null; }
+
+    /**
+     * Identifies a phase of a release build.
+     */
+    public enum PhaseId {
+        RELEASE_VERSION_TEMPLATE(Messages._ReleaseTimingAction_ReleaseVersionTemplate()),
+        PRE_BUILD_STEPS(Messages._ReleaseTimingAction_PreBuildSteps()),
+        BUILD(Messages._ReleaseTimingAction_Build()),
+        POST_SUCCESSFUL_BUILD_STEPS(Messages._ReleaseTimingAction_PostSuccessfulBuildSteps()),
+        POST_FAILED_BUILD_STEPS(Messages._ReleaseTimingAction_PostFailedBuildSteps()),
+        POST_BUILD_STEPS(Messages._ReleaseTimingAction_PostBuildSteps()),
+        PRE_MATRIX_BUILD_STEPS(Messages._ReleaseTimingAction_PreMatrixBuildSteps()),
+        MATRIX_CONFIGURATIONS(Messages._ReleaseTimingAction_MatrixConfigurations()),
+        POST_SUCCESSFUL_CONFIGURATION_BUILD_STEPS(Messages._ReleaseTimingAction_PostSuccessfulConfigurationBuildSteps()),
+        POST_FAILED_CONFIGURATION_BUILD_STEPS(Messages._ReleaseTimingAction_PostFailedConfigurationBuildSteps()),
+        POST_CONFIGURATION_BUILD_STEPS(Messages._ReleaseTimingAction_PostConfigurationBuildSteps()),
+        POST_SUCCESSFUL_MATRIX_BUILD_STEPS(Messages._ReleaseTimingAction_PostSuccessfulMatrixBuildSteps()),
+        POST_FAILED_MATRIX_BUILD_STEPS(Messages._ReleaseTimingAction_PostFailedMatrixBuildSteps()),
+        POST_MATRIX_BUILD_STEPS(Messages._ReleaseTimingAction_PostMatrixBuildSteps());
+
+        private final Localizable displayName;
+
+        PhaseId(Localizable displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return the name of the phase in the current locale, for display only
+         */
+        public String getDisplayName() {
+            return displayName.toString();
+        }
+    }
+
+    /**
+     * One phase of a release build, like a release step list.
+     */
+    @ExportedBean(defaultVisibility = 3)
+    public static final class Phase {
+        private final PhaseId id;
+        /**
+         * Name of the matrix configuration the phase was run for, null for the build as a whole.
+         */
+        @CheckForNull
+        private final String configuration;
+        private final long timestamp;
+        private long duration = -1;
+        private final List<Step> steps = new CopyOnWriteArrayList<Step>();
+        private transient long startNanos;
+
+        Phase(PhaseId id, String configuration) {
+            this.id = id;
+            this.configuration = configuration;
+            this.timestamp = System.currentTimeMillis();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Records the time taken by one step of this phase.
+         */
+        public void record(@Nonnull String stepName, long durationNanos) {
+            steps.add(new Step(stepName, TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+        }
+
+        public void end() {
+            duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        @Exported
+        public PhaseId getId() {
+            return id;
+        }
+
+        @Exported
+        @CheckForNull
+        public String getConfiguration() {
+            return configuration;
+        }
+
+        /**
+         * @return the time the phase started at, in milliseconds since the epoch
+         */
+        @Exported
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the duration in milliseconds, -1 while the phase is running
+         */
+        @Exported
+        public long getDuration() {
+            return duration;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(Math.max(duration, 0));
+        }
+
+        @Exported
+        public List<Step> getSteps() {
+            return steps;
+        }
+    }
+
+    /**
+     * One release step of a phase.
+     */
+    @ExportedBean(defaultVisibility = 4)
+    public static final class Step {
+        private final String name;
+        private final long duration;
+
+        Step(String name, long duration) {
+            this.name = name;
+            this.duration = duration;
+        }
+
+        @Exported
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the duration in milliseconds, including the preparation of the step
+         */
+        @Exported
+        public long getDuration() {
+            return duration;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(duration);
+        }
+    }
+}
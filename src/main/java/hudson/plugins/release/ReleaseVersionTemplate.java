@@ -0,0 +1,123 @@
+package hudson.plugins.release;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.Util;
+import hudson.util.VariableResolver;
+
+/**
+ * Release version template parsed into literal text and variable references,
+ * so that it is only parsed once per configuration.
+ * <p>
+ * Resolving a template gives the same result as {@link Util#replaceMacro(String, VariableResolver)}:
+ * {@code $NAME} and {@code ${NAME}} are replaced by their value, {@code $$} by
+ * a single dollar sign, and variables without a value are kept as is.
+ *
+ * @since 2.7
+ */
+final class ReleaseVersionTemplate {
+
+    /**
+     * Same syntax as {@link Util#replaceMacro(String, VariableResolver)}.
+     */
+    private static final Pattern VARIABLE = Pattern.compile("\\$([A-Za-z0-9_]+|\\{[A-Za-z0-9_.]+\\}|\\$)");
+
+    private final String source;
+
+    private final List<Token> tokens;
+
+    private ReleaseVersionTemplate(String source, List<Token> tokens) {
+        this.source = source;
+        this.tokens = tokens;
+    }
+
+    static ReleaseVersionTemplate compile(String source) {
+        List<Token> tokens = new ArrayList<Token>();
+        Matcher m = VARIABLE.matcher(source);
+        int idx = 0;
+        while (m.find()) {
+            if (m.start() > idx) {
+                tokens.add(new Token(source.substring(idx, m.start()), null));
+            }
+            String key = m.group(1);
+            if (key.equals("$")) {
+                // escaped dollar sign
+                tokens.add(new Token("$", null));
+            } else {
+                if (key.charAt(0) == '{') {
+                    key = key.substring(1, key.length() - 1);
+                }
+                tokens.add(new Token(m.group(), key));
+            }
+            idx = m.end();
+        }
+        if (idx < source.length()) {
+            tokens.add(new Token(source.substring(idx), null));
+        }
+        return new ReleaseVersionTemplate(source, Collections.unmodifiableList(tokens));
+    }
+
+    /**
+     * Tells whether the given text references variables, that is, whether
+     * resolving it as a template could change it.
+     */
+    static boolean containsVariables(String text) {
+        return VARIABLE.matcher(text).find();
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Resolves the template, looking up each referenced variable once.
+     */
+    String resolve(VariableResolver<String> resolver) {
+        StringBuilder sb = new StringBuilder();
+        List<String> names = null;
+        List<String> values = null;
+        for (Token token : tokens) {
+            if (token.name == null) {
+                sb.append(token.text);
+                continue;
+            }
+
+            // templates are short, a linear lookup beats hashing
+            if (names == null) {
+                names = new ArrayList<String>(2);
+                values = new ArrayList<String>(2);
+            }
+            int i = names.indexOf(token.name);
+            String value;
+            if (i >= 0) {
+                value = values.get(i);
+            } else {
+                value = resolver.resolve(token.name);
+                names.add(token.name);
+                values.add(value);
+            }
+            sb.append(value != null ? value : token.text);
+        }
+        return sb.toString();
+    }
+
+    private static final class Token {
+        /**
+         * Literal text, or the reference as written for variables.
+         */
+        final String text;
+        /**
+         * Name of the referenced variable, null for literal text.
+         */
+        final String name;
+
+        Token(String text, String name) {
+            this.text = text;
+            this.name = name;
+        }
+    }
+}
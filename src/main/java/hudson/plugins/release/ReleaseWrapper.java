@@ -24,13 +24,10 @@
  */
 package hudson.plugins.release;
 
-import hudson.DescriptorExtensionList;
 import hudson.EnvVars;
 import hudson.Extension;
-import hudson.ExtensionList;
 import hudson.Functions;
 import hudson.Launcher;
-import hudson.Util;
 import hudson.ivy.IvyModuleSet;
 import hudson.matrix.MatrixRun;
 import hudson.maven.MavenModuleSet;
@@ -40,20 +37,26 @@ import hudson.model.Action;
 import hudson.model.BuildBadgeAction;
 import hudson.model.BuildListener;
 import hudson.model.Cause;
+import hudson.model.CauseAction;
 import hudson.model.Descriptor;
 import hudson.model.FreeStyleProject;
 import hudson.model.Hudson;
 import hudson.model.Item;
 import hudson.model.Job;
+import hudson.model.Node;
 import hudson.model.ParameterDefinition;
 import hudson.model.ParameterValue;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
 import hudson.model.PermalinkProjectAction;
 import hudson.model.PermalinkProjectAction.Permalink;
+import hudson.model.Queue;
+import hudson.model.Queue.ScheduleResult;
 import hudson.model.Result;
 import hudson.model.Run;
+import hudson.model.StreamBuildListener;
 import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
 import hudson.plugins.release.promotion.ReleasePromotionCondition;
 import hudson.security.Permission;
 import hudson.security.PermissionGroup;
@@ -61,7 +64,6 @@ import hudson.security.PermissionScope;
 import hudson.tasks.BuildStep;
 import hudson.tasks.BuildWrapper;
 import hudson.tasks.BuildWrapperDescriptor;
-import hudson.tasks.Builder;
 import hudson.util.VariableResolver;
 import hudson.matrix.MatrixProject;
 import hudson.matrix.MatrixChildAction;
@@ -69,26 +71,40 @@ import hudson.matrix.MatrixConfiguration;
 import hudson.matrix.MatrixAggregatable;
 import hudson.matrix.MatrixAggregator;
 import hudson.matrix.MatrixBuild;
-import hudson.tasks.Publisher;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 
 import jenkins.model.Jenkins;
 import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONNull;
 import net.sf.json.JSONObject;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
 
 /**
  * Wraps a build with pre and post build steps.  These steps can take
@@ -109,6 +125,7 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
     private static final String DEFAULT_RELEASE_VERSION_TEMPLATE = "Release #$RELEASE_VERSION";
 	
     private String releaseVersionTemplate;
+    private transient volatile ReleaseVersionTemplate compiledReleaseVersionTemplate;
     private boolean doNotKeepLog;
     private boolean overrideBuildParameters;
     private List<ParameterDefinition> parameterDefinitions = new ArrayList<ParameterDefinition>();
@@ -120,9 +137,15 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
     private List<BuildStep> postSuccessfulMatrixBuildSteps = new ArrayList<BuildStep>();
     private List<BuildStep> postFailedMatrixBuildSteps = new ArrayList<BuildStep>();
     private List<BuildStep> postMatrixBuildSteps = new ArrayList<BuildStep>();
+    private boolean preMatrixBuildStepsInBackground;
+    private List<BuildStep> postSuccessfulConfigurationBuildSteps = new ArrayList<BuildStep>();
+    private List<BuildStep> postFailedConfigurationBuildSteps = new ArrayList<BuildStep>();
+    private List<BuildStep> postConfigurationBuildSteps = new ArrayList<BuildStep>();
+
+    private transient volatile ParameterDefinitionIndex parameterDefinitionIndex;
     
     /**
-     * List of {@link Permalink}s for release builds.
+     * List of {@link Permalink}s for release builds, resolved through the {@link ReleaseIndex}.
      */
     public static final List<Permalink> RELEASE = new CopyOnWriteArrayList<Permalink>();
 
@@ -137,12 +160,7 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             }
 
             public Run<?,?> resolve(Job<?,?> job) {
-            	for(Run<?,?> build : job.getBuilds()){
-            		if(build.getAction(ReleaseBuildBadgeAction.class) != null){
-            			return build;
-            		}
-            	}
-                return null;
+                return ReleaseIndex.getLastRelease(job);
             }
         });
         RELEASE.add(new Permalink() {
@@ -155,12 +173,7 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             }
 
             public Run<?,?> resolve(Job<?,?> job) {
-            	for(Run<?,?> build : job.getBuilds()){
-            		if(build.getResult() == Result.SUCCESS && build.getAction(ReleaseBuildBadgeAction.class) != null){
-            			return build;
-            		}
-            	}
-                return null;
+                return ReleaseIndex.getLastSuccessfulRelease(job);
             }
         });
     }
@@ -224,6 +237,20 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
     public void setPreMatrixBuildSteps(List<BuildStep> preMatrixBuildSteps) {
         this.preMatrixBuildSteps = preMatrixBuildSteps;
     }
+
+    /**
+     * Whether the matrix configurations are started without waiting for the
+     * steps before the release build and all matrix configurations.
+     *
+     * @since 2.7
+     */
+    public boolean isPreMatrixBuildStepsInBackground() {
+        return preMatrixBuildStepsInBackground;
+    }
+
+    public void setPreMatrixBuildStepsInBackground(boolean preMatrixBuildStepsInBackground) {
+        this.preMatrixBuildStepsInBackground = preMatrixBuildStepsInBackground;
+    }
     
     /**
      * @return Returns the postBuildSteps.
@@ -282,6 +309,42 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         this.postFailedMatrixBuildSteps = postFailedMatrixBuildSteps;
     }
 
+    /**
+     * @return the steps run as soon as a matrix configuration of a release succeeded
+     * @since 2.7
+     */
+    public List<BuildStep> getPostSuccessfulConfigurationBuildSteps() {
+        return postSuccessfulConfigurationBuildSteps;
+    }
+
+    public void setPostSuccessfulConfigurationBuildSteps(List<BuildStep> postSuccessfulConfigurationBuildSteps) {
+        this.postSuccessfulConfigurationBuildSteps = postSuccessfulConfigurationBuildSteps;
+    }
+
+    /**
+     * @return the steps run as soon as a matrix configuration of a release failed
+     * @since 2.7
+     */
+    public List<BuildStep> getPostFailedConfigurationBuildSteps() {
+        return postFailedConfigurationBuildSteps;
+    }
+
+    public void setPostFailedConfigurationBuildSteps(List<BuildStep> postFailedConfigurationBuildSteps) {
+        this.postFailedConfigurationBuildSteps = postFailedConfigurationBuildSteps;
+    }
+
+    /**
+     * @return the steps run as soon as a matrix configuration of a release completed
+     * @since 2.7
+     */
+    public List<BuildStep> getPostConfigurationBuildSteps() {
+        return postConfigurationBuildSteps;
+    }
+
+    public void setPostConfigurationBuildSteps(List<BuildStep> postConfigurationBuildSteps) {
+        this.postConfigurationBuildSteps = postConfigurationBuildSteps;
+    }
+
     @Override
     public Collection<? extends Action> getProjectActions(AbstractProject job) {
         return Collections.singletonList(new ReleaseAction(job));
@@ -293,6 +356,10 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         instance.setPostSuccessfulMatrixBuildSteps(postSuccessfulMatrixBuildSteps);
         instance.setPostFailedMatrixBuildSteps(postFailedMatrixBuildSteps);
         instance.setPostMatrixBuildSteps(postMatrixBuildSteps);
+        instance.setPreMatrixBuildStepsInBackground(preMatrixBuildStepsInBackground);
+        instance.setPostSuccessfulConfigurationBuildSteps(postSuccessfulConfigurationBuildSteps);
+        instance.setPostFailedConfigurationBuildSteps(postFailedConfigurationBuildSteps);
+        instance.setPostConfigurationBuildSteps(postConfigurationBuildSteps);
         return instance;
     }
     
@@ -309,34 +376,27 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         // Set the release version now by resolving build parameters against build and release version template
         ParametersAction parametersAction = build.getAction(ParametersAction.class);
         if (parametersAction != null) {
-	        // set up variable resolver from parameters action
-        	VariableResolver<String> resolver = createVariableResolver(parametersAction, build);
-	        
-        	// resolve template against resolver
-        	String releaseVersion = Util.replaceMacro(releaseVersionTemplate != null && !"".equals(releaseVersionTemplate) ? releaseVersionTemplate : DEFAULT_RELEASE_VERSION_TEMPLATE, resolver);
-
-        	// replace environment variables with actual values
-        	EnvVars env = build.getEnvironment(listener);
-        	releaseVersion = env.expand(releaseVersion);
-
-        	// if release version is same as original, then blank it out
-        	if (DEFAULT_RELEASE_VERSION_TEMPLATE.equals(releaseVersion)) {
-        		releaseVersion = null;
+        	ReleaseTimingAction.Phase templating = ReleaseTimingAction.of(build).start(ReleaseTimingAction.PhaseId.RELEASE_VERSION_TEMPLATE);
+        	try {
+        		releaseBuildBadge.releaseVersion = computeReleaseVersion(build, parametersAction, listener);
+        	} finally {
+        		templating.end();
         	}
-        	
-        	releaseBuildBadge.releaseVersion = releaseVersion;
         }
         
-        if (!executeBuildSteps(preBuildSteps, build, launcher, listener)) {
+        if (!executeBuildSteps(preBuildSteps, ReleaseTimingAction.PhaseId.PRE_BUILD_STEPS, build, launcher, listener)) {
             throw new IOException(Messages.ReleaseWrapper_CouldNotExecutePreBuildSteps());
         }
         
+        final ReleaseTimingAction.Phase buildPhase = ReleaseTimingAction.of(build).start(ReleaseTimingAction.PhaseId.BUILD);
+        
         // return environment
         return new Environment() {
         	
             @Override
             public boolean tearDown(AbstractBuild build, BuildListener listener) throws IOException,
                     InterruptedException {
+                buildPhase.end();
                 boolean shouldContinue = false;
 
                 try {
@@ -359,13 +419,13 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
                                 }
                         }
 
-                        shouldContinue = executeBuildSteps(postSuccessfulBuildSteps, build, launcher, listener);
+                        shouldContinue = executeBuildSteps(postSuccessfulBuildSteps, ReleaseTimingAction.PhaseId.POST_SUCCESSFUL_BUILD_STEPS, build, launcher, listener);
                     } else {
-                        shouldContinue = executeBuildSteps(postFailedBuildSteps, build, launcher, listener);
+                        shouldContinue = executeBuildSteps(postFailedBuildSteps, ReleaseTimingAction.PhaseId.POST_FAILED_BUILD_STEPS, build, launcher, listener);
                     }
                 } finally {
                     if (shouldContinue) {
-                        shouldContinue = executeBuildSteps(postBuildSteps, build, launcher, listener);
+                        shouldContinue = executeBuildSteps(postBuildSteps, ReleaseTimingAction.PhaseId.POST_BUILD_STEPS, build, launcher, listener);
                     }
                 }
 
@@ -374,6 +434,145 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         };
     }
 
+    /**
+     * Gets the parameter definitions which can be submitted for a release of the
+     * given project by name: the release parameters and, if they are overridden,
+     * the build parameters. Release parameters take precedence over build ones.
+     * <p>
+     * The map is computed once per configuration and recomputed when either list
+     * of definitions gets replaced, as happens when the job configuration is saved.
+     */
+    Map<String, ParameterDefinition> getParameterDefinitionsByName(AbstractProject<?,?> project) {
+        List<ParameterDefinition> buildParameterDefinitions = null;
+        if (overrideBuildParameters) {
+            ParametersDefinitionProperty buildParamsDefProp = (ParametersDefinitionProperty) project.getProperty(ParametersDefinitionProperty.class);
+            if (buildParamsDefProp != null) {
+                buildParameterDefinitions = buildParamsDefProp.getParameterDefinitions();
+            }
+        }
+
+        ParameterDefinitionIndex index = parameterDefinitionIndex;
+        if (index == null || !index.isFor(parameterDefinitions, buildParameterDefinitions)) {
+            index = new ParameterDefinitionIndex(parameterDefinitions, buildParameterDefinitions);
+            parameterDefinitionIndex = index;
+        }
+        return index.definitions;
+    }
+
+    /**
+     * Parameter definitions by name, along with the lists they were computed from.
+     */
+    private static final class ParameterDefinitionIndex {
+        private final List<ParameterDefinition> releaseParameterDefinitions;
+        private final int releaseParameterCount;
+        private final List<ParameterDefinition> buildParameterDefinitions;
+        private final int buildParameterCount;
+        private final Map<String, ParameterDefinition> definitions;
+
+        ParameterDefinitionIndex(List<ParameterDefinition> releaseParameterDefinitions, List<ParameterDefinition> buildParameterDefinitions) {
+            this.releaseParameterDefinitions = releaseParameterDefinitions;
+            this.releaseParameterCount = sizeOf(releaseParameterDefinitions);
+            this.buildParameterDefinitions = buildParameterDefinitions;
+            this.buildParameterCount = sizeOf(buildParameterDefinitions);
+
+            Map<String, ParameterDefinition> definitions = new HashMap<String, ParameterDefinition>();
+            addAbsent(definitions, releaseParameterDefinitions);
+            addAbsent(definitions, buildParameterDefinitions);
+            this.definitions = Collections.unmodifiableMap(definitions);
+        }
+
+        boolean isFor(List<ParameterDefinition> releaseParameterDefinitions, List<ParameterDefinition> buildParameterDefinitions) {
+            return this.releaseParameterDefinitions == releaseParameterDefinitions && releaseParameterCount == sizeOf(releaseParameterDefinitions)
+                    && this.buildParameterDefinitions == buildParameterDefinitions && buildParameterCount == sizeOf(buildParameterDefinitions);
+        }
+
+        private static int sizeOf(List<ParameterDefinition> definitions) {
+            return definitions != null ? definitions.size() : 0;
+        }
+
+        private static void addAbsent(Map<String, ParameterDefinition> definitions, List<ParameterDefinition> toAdd) {
+            if (toAdd != null) {
+                for (ParameterDefinition pd : toAdd) {
+                    if (!definitions.containsKey(pd.getName())) {
+                        definitions.put(pd.getName(), pd);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the release version template against the parameters and the
+     * environment of the given build.
+     *
+     * @return the release version, or null if the default template resolved to nothing
+     */
+    String computeReleaseVersion(final AbstractBuild build, final ParametersAction parametersAction, TaskListener listener) throws IOException,
+            InterruptedException {
+        // resolve template against build variables and parameters, set up on first use
+        String releaseVersion = getCompiledReleaseVersionTemplate().resolve(new VariableResolver<String>() {
+            private VariableResolver<String> resolver;
+
+            public String resolve(String name) {
+                if (resolver == null) {
+                    resolver = createVariableResolver(parametersAction, build);
+                }
+                return resolver.resolve(name);
+            }
+        });
+
+        // replace environment variables with actual values, if any are left
+        if (ReleaseVersionTemplate.containsVariables(releaseVersion)) {
+            EnvVars env = build.getEnvironment(listener);
+            releaseVersion = env.expand(releaseVersion);
+        }
+
+        // if release version is same as original, then blank it out
+        if (DEFAULT_RELEASE_VERSION_TEMPLATE.equals(releaseVersion)) {
+            releaseVersion = null;
+        }
+
+        return releaseVersion;
+    }
+
+    /**
+     * Computes the release version of a release with the given parameters before
+     * it gets built, like {@link #computeReleaseVersion} will once it is.
+     *
+     * @return the release version, or null if there is none or if the template
+     *         refers to variables other than parameters, which are only known
+     *         once the release is built
+     */
+    String previewReleaseVersion(List<ParameterValue> parameters) {
+        Map<String, String> values = new HashMap<String, String>();
+        for (ParameterValue p : parameters) {
+            // later parameters take precedence, as in createVariableResolver
+            Object value = p.getValue();
+            if (value != null && !p.isSensitive()) {
+                values.put(p.getName(), String.valueOf(value));
+            }
+        }
+
+        String releaseVersion = getCompiledReleaseVersionTemplate().resolve(new VariableResolver.ByMap<String>(values));
+        if (ReleaseVersionTemplate.containsVariables(releaseVersion) || DEFAULT_RELEASE_VERSION_TEMPLATE.equals(releaseVersion)) {
+            return null;
+        }
+        return releaseVersion;
+    }
+
+    /**
+     * Gets the release version template, parsed once for each template set.
+     */
+    private ReleaseVersionTemplate getCompiledReleaseVersionTemplate() {
+        String source = releaseVersionTemplate != null && !"".equals(releaseVersionTemplate) ? releaseVersionTemplate : DEFAULT_RELEASE_VERSION_TEMPLATE;
+        ReleaseVersionTemplate template = compiledReleaseVersionTemplate;
+        if (template == null || !template.getSource().equals(source)) {
+            template = ReleaseVersionTemplate.compile(source);
+            compiledReleaseVersionTemplate = template;
+        }
+        return template;
+    }
+
     /*
      * Copied method from ParametersAction to reverse order of resolvers
      * per HUDSON-5094
@@ -391,29 +590,54 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         return new VariableResolver.Union<String>(resolvers);
     }
     
-    private boolean executeBuildSteps(List<BuildStep> buildSteps, AbstractBuild build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+    /**
+     * Prepares then performs the given release steps, stopping at the first one
+     * which fails, and records how long each of them takes as the given phase of
+     * the {@link ReleaseTimingAction} of the build.
+     *
+     * @return whether all steps succeeded
+     */
+    static boolean executeBuildSteps(List<BuildStep> buildSteps, ReleaseTimingAction.PhaseId phaseId, AbstractBuild build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+        if (buildSteps == null || buildSteps.isEmpty()) {
+            return true;
+        }
+        return executeBuildSteps(buildSteps, ReleaseTimingAction.of(build).start(phaseId), build, launcher, listener);
+    }
+
+    /**
+     * Executes the given non empty build steps, timed as the given phase,
+     * which may belong to another build.
+     */
+    private static boolean executeBuildSteps(List<BuildStep> buildSteps, ReleaseTimingAction.Phase phase, AbstractBuild build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
         boolean shouldContinue = true;
-        
-        // execute prebuild steps, stop processing if indicated
-        if (buildSteps != null) {
-	        for (BuildStep buildStep : buildSteps) {
-	            
-	            if (!shouldContinue) {
-	                break;
-	            }
-	            
-	            shouldContinue = buildStep.prebuild(build, listener);
-	        }
-        
-	        // execute build step, stop processing if indicated
-	        for (BuildStep buildStep : buildSteps) {
-	            
-	            if (!shouldContinue) {
-	                break;
-	            }
-	            
-	            shouldContinue = buildStep.perform(build, launcher, listener);
-	        }
+        long[] durations = new long[buildSteps.size()];
+        int executed = 0;
+        try {
+            // execute prebuild steps, stop processing if indicated
+            for (int i = 0; i < buildSteps.size() && shouldContinue; i++) {
+                long start = System.nanoTime();
+                try {
+                    shouldContinue = buildSteps.get(i).prebuild(build, listener);
+                } finally {
+                    durations[i] += System.nanoTime() - start;
+                    executed = Math.max(executed, i + 1);
+                }
+            }
+
+            // execute build step, stop processing if indicated
+            for (int i = 0; i < buildSteps.size() && shouldContinue; i++) {
+                long start = System.nanoTime();
+                try {
+                    shouldContinue = buildSteps.get(i).perform(build, launcher, listener);
+                } finally {
+                    durations[i] += System.nanoTime() - start;
+                }
+            }
+        } finally {
+            for (int i = 0; i < executed; i++) {
+                phase.record(ReleaseWrapperHelper.getDisplayName(buildSteps.get(i)), durations[i]);
+            }
+            phase.end();
         }
         
         return shouldContinue;
@@ -439,6 +663,7 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         public BuildWrapper newInstance(StaplerRequest req, JSONObject formData) throws FormException {
             ReleaseWrapper instance = new ReleaseWrapper();
             instance.releaseVersionTemplate = formData.getString("releaseVersionTemplate");
+            instance.getCompiledReleaseVersionTemplate();
             instance.doNotKeepLog = formData.getBoolean("doNotKeepLog");
             instance.overrideBuildParameters = formData.getBoolean("overrideBuildParameters");
             instance.parameterDefinitions = Descriptor.newInstancesFromHeteroList(req, formData, "parameters", ParameterDefinition.all());
@@ -450,18 +675,16 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             instance.postMatrixBuildSteps = Descriptor.newInstancesFromHeteroList(req, formData, "postMatrixBuildSteps", getSteps());
             instance.postSuccessfulMatrixBuildSteps = Descriptor.newInstancesFromHeteroList(req, formData, "postSuccessfulMatrixBuildSteps", getSteps());
             instance.postFailedMatrixBuildSteps = Descriptor.newInstancesFromHeteroList(req, formData, "postFailedMatrixBuildSteps", getSteps());
+            instance.preMatrixBuildStepsInBackground = formData.optBoolean("preMatrixBuildStepsInBackground");
+            instance.postSuccessfulConfigurationBuildSteps = Descriptor.newInstancesFromHeteroList(req, formData, "postSuccessfulConfigurationBuildSteps", getSteps());
+            instance.postFailedConfigurationBuildSteps = Descriptor.newInstancesFromHeteroList(req, formData, "postFailedConfigurationBuildSteps", getSteps());
+            instance.postConfigurationBuildSteps = Descriptor.newInstancesFromHeteroList(req, formData, "postConfigurationBuildSteps", getSteps());
             return instance;
         }
         
-        private ExtensionList getSteps()
+        static List<Descriptor> getSteps()
         {
-            DescriptorExtensionList<Publisher, Descriptor<Publisher>> publishers = DescriptorExtensionList.createDescriptorList(Jenkins.getInstance(), Publisher.class);
-            DescriptorExtensionList<Builder, Descriptor<Builder>> builders = DescriptorExtensionList.createDescriptorList(Jenkins.getInstance(), Builder.class);
-
-            ExtensionListImpl impl = new ExtensionListImpl();
-            impl.addAll(publishers);
-            impl.addAll(builders);
-            return impl;
+            return ReleaseStepDescriptors.all();
         }
         
         @Override
@@ -484,15 +707,14 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             return MatrixProject.class.isInstance(item);
         }
 
-        private static class ExtensionListImpl extends ExtensionList<Descriptor> {
-
-            public ExtensionListImpl() {
-                super(Jenkins.getInstance(), Descriptor.class);
-            }
-        }
     }
 
     public class ReleaseAction implements Action, PermalinkProjectAction {
+        /**
+         * Number of previous release builds rendered at once on the release page.
+         */
+        static final int PREVIOUS_RELEASES_PAGE_SIZE = 20;
+
         private AbstractProject project;
         private String releaseVersion;
         private String developmentVersion;    
@@ -542,17 +764,28 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         }
         
         /**
-         * @return A map of previous build numbers and release version identifiers
+         * @return All the previous release builds, newest first
+         * @see #getPreviousReleaseBuilds(int, int)
          */
         public List<AbstractBuild> getPreviousReleaseBuilds() {
-        	List<AbstractBuild> previousReleaseBuilds = new ArrayList<AbstractBuild>();
-            
-            for (Iterator iter = project.getBuilds().iterator(); iter.hasNext(); ) {
-                AbstractBuild build = (AbstractBuild) iter.next();
-                
-                ReleaseBuildBadgeAction badge = build.getAction(ReleaseBuildBadgeAction.class);
-                
-                if (badge != null) {
+            return getPreviousReleaseBuilds(0, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Gets one page of the previous release builds, newest first. Only the
+         * returned builds get loaded.
+         *
+         * @param offset number of release builds to skip
+         * @param limit maximum number of release builds to return
+         * @return the previous release builds of the requested page
+         */
+        public List<AbstractBuild> getPreviousReleaseBuilds(int offset, int limit) {
+            List<AbstractBuild> previousReleaseBuilds = new ArrayList<AbstractBuild>();
+
+            for (int number : ReleaseIndex.get(project).getNumbers(offset, limit)) {
+                AbstractBuild build = (AbstractBuild) project.getBuildByNumber(number);
+
+                if (build != null) {
                     previousReleaseBuilds.add(build);
                 }
             }
@@ -560,6 +793,34 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             return previousReleaseBuilds;
         }
 
+        /**
+         * @return The number of previous release builds
+         */
+        public int getPreviousReleaseCount() {
+            return ReleaseIndex.get(project).size();
+        }
+
+        public int getPreviousReleasesPageSize() {
+            return PREVIOUS_RELEASES_PAGE_SIZE;
+        }
+
+        /**
+         * @return The timings of the last release build, or null if it has none
+         */
+        public ReleaseTimingAction getLastReleaseTimings() {
+            Run<?,?> lastRelease = ReleaseIndex.getLastRelease(project);
+            return lastRelease != null ? lastRelease.getAction(ReleaseTimingAction.class) : null;
+        }
+
+        /**
+         * Renders the page of previous release builds starting at the given offset,
+         * used to incrementally load the release history on the release page.
+         */
+        public void doPreviousReleases(StaplerRequest req, StaplerResponse rsp, @QueryParameter int offset) throws IOException, ServletException {
+            req.setAttribute("offset", Math.max(offset, 0));
+            req.getView(this, "previousReleases.jelly").forward(req, rsp);
+        }
+
         public String getReleaseVersionForBuild(AbstractBuild build) {
             ReleaseBuildBadgeAction badge = build.getAction(ReleaseBuildBadgeAction.class);
 
@@ -600,32 +861,7 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
          * @return the parameter definition with the given name
          */
         public ParameterDefinition getParameterDefinition(String name) {
-            ParametersDefinitionProperty buildParamsDefProp = (ParametersDefinitionProperty) project.getProperty(ParametersDefinitionProperty.class);
-            List<ParameterDefinition> buildParameterDefinitions = null;
-            if (buildParamsDefProp != null) {
-                buildParameterDefinitions = buildParamsDefProp.getParameterDefinitions();
-            }
-
-            if (!overrideBuildParameters && parameterDefinitions == null
-                    || overrideBuildParameters && parameterDefinitions == null && buildParameterDefinitions == null) {
-        		return null;
-        	}
-
-            for (ParameterDefinition pd : parameterDefinitions) {
-                if (pd.getName().equals(name)) {
-                    return pd;
-                }
-            }
-
-            if (overrideBuildParameters) {
-                for (ParameterDefinition pd : buildParameterDefinitions) {
-                    if (pd.getName().equals(name)) {
-                        return pd;
-                    }
-                }
-            }
-
-            return null;
+            return getParameterDefinitionsByName(project).get(name);
         }
 
         /*
@@ -656,14 +892,24 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             return overrideBuildParameters;
         }
         
-        public void doSubmit(StaplerRequest req, StaplerResponse resp) throws IOException, ServletException {
-        	// verify permission
-        	ReleaseWrapper.checkReleasePermission(project);
-        	
-            // bind development / release version
-            req.bindParameters(this);
+        /**
+         * Tells whether releases are submitted with parameters, as opposed to the
+         * legacy release and development versions.
+         */
+        boolean isParameterized() {
+            return getParameterDefinitions() != null && !getParameterDefinitions().isEmpty()
+                    || overrideBuildParameters && getBuildParameterDefinitions() != null && !getBuildParameterDefinitions().isEmpty();
+        }
 
-            // create parameter list
+        /**
+         * Creates the parameter values of a release build.
+         *
+         * @param parameters the submitted parameters, used if {@link #isParameterized()}
+         * @param releaseVersion the legacy release version, used otherwise
+         * @param developmentVersion the legacy development version, used otherwise
+         * @throws IllegalArgumentException if a parameter is not defined
+         */
+        List<ParameterValue> createParameterValues(StaplerRequest req, JSONArray parameters, String releaseVersion, String developmentVersion) {
             List<ParameterValue> paramValues;
             if (isOverrideBuildParameters()) {
                 // if overrideBuildParameters is set, then build params are submitted
@@ -674,23 +920,20 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
                 paramValues = getDefaultParametersValues();
             }
             
-            if (getParameterDefinitions() != null && !getParameterDefinitions().isEmpty()
-                    || overrideBuildParameters &&  getBuildParameterDefinitions() != null && !getBuildParameterDefinitions().isEmpty()) {
-	            JSONObject formData = req.getSubmittedForm();
-	            
-	            JSONArray a = JSONArray.fromObject(formData.get("parameter"));
-
-	            for (Object o : a) {
-	                JSONObject jo = (JSONObject) o;
-	                String name = jo.getString("name");
-
-	                ParameterDefinition d = getParameterDefinition(name);
-	                if(d==null)
-	                    throw new IllegalArgumentException("No such parameter definition: " + name);
-	                
-	                ParameterValue value = d.createValue(req, jo);
-	                
-	                paramValues.add(d.createValue(req, jo));
+            if (isParameterized()) {
+	            Map<String, ParameterDefinition> definitions = getParameterDefinitionsByName(project);
+
+	            if (parameters != null) {
+	                for (Object o : parameters) {
+	                    JSONObject jo = (JSONObject) o;
+	                    String name = jo.getString("name");
+
+	                    ParameterDefinition d = definitions.get(name);
+	                    if(d==null)
+	                        throw new IllegalArgumentException("No such parameter definition: " + name);
+
+	                    paramValues.add(d.createValue(req, jo));
+	                }
 	            }
             } else {
 	            // add version if specified
@@ -702,25 +945,135 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
 	            	paramValues.add(new StringParameterValue("DEVELOPMENT_VERSION", developmentVersion));
 	            }
             }
+
+            return paramValues;
+        }
+
+        /**
+         * Creates the parameter values of a release submitted as a JSON document
+         * laid out like the release form. Release parameters left out take their
+         * default value.
+         *
+         * @throws IllegalArgumentException if a parameter is not defined
+         */
+        List<ParameterValue> createParameterValues(StaplerRequest req, JSONObject submission) {
+            JSONArray parameters = submission.has("parameter") ? JSONArray.fromObject(submission.get("parameter")) : null;
+            List<ParameterValue> paramValues = createParameterValues(req, parameters,
+                    submission.optString("releaseVersion", null), submission.optString("developmentVersion", null));
+
+            if (isParameterized()) {
+                Set<String> names = new HashSet<String>();
+                for (ParameterValue value : paramValues) {
+                    names.add(value.getName());
+                }
+                for (Map.Entry<String, ParameterDefinition> e : getParameterDefinitionsByName(project).entrySet()) {
+                    if (!names.contains(e.getKey())) {
+                        ParameterValue value = e.getValue().getDefaultParameterValue();
+                        if (value != null) {
+                            paramValues.add(value);
+                        }
+                    }
+                }
+            }
+
+            return paramValues;
+        }
+
+        /**
+         * Puts a release with the given parameters in the queue. An identical
+         * release already waiting in the queue absorbs this one.
+         */
+        ScheduleResult scheduleRelease(Cause cause, List<ParameterValue> paramValues) {
+            return Jenkins.getActiveInstance().getQueue().schedule2(project, 0,
+                    new CauseAction(cause),
+                    new ReleaseBuildBadgeAction(),
+                    new SafeParametersAction(paramValues));
+        }
+
+        public void doSubmit(StaplerRequest req, StaplerResponse resp) throws IOException, ServletException {
+        	// verify permission
+        	ReleaseWrapper.checkReleasePermission(project);
+        	
+            // bind development / release version
+            req.bindParameters(this);
+
+            // create parameter list
+            JSONArray parameters = null;
+            if (isParameterized()) {
+                parameters = JSONArray.fromObject(req.getSubmittedForm().get("parameter"));
+            }
+            List<ParameterValue> paramValues = createParameterValues(req, parameters, releaseVersion, developmentVersion);
             
             // schedule release build
-            if (!project.scheduleBuild(0, new Cause.UserIdCause(), 
-            		new ReleaseBuildBadgeAction(), 
-            		new SafeParametersAction(paramValues))) {
-            	// TODO redirect to error page?
+            if (!project.isBuildable()) {
+            	throw HttpResponses.error(HttpServletResponse.SC_CONFLICT, Messages.ReleaseWrapper_ReleaseNotScheduled(project.getFullDisplayName()));
+            }
+            ScheduleResult result = scheduleRelease(new Cause.UserIdCause(), paramValues);
+            if (result.isRefused()) {
+            	throw HttpResponses.error(HttpServletResponse.SC_CONFLICT, Messages.ReleaseWrapper_ReleaseNotScheduled(project.getFullDisplayName()));
             }
             
             // redirect to status page
             resp.sendRedirect(project.getAbsoluteUrl());
         }
 
+        /**
+         * Schedules a release from a JSON document laid out like the release form,
+         * for instance <code>{"parameter": [{"name": "VERSION", "value": "1.0"}]}</code>.
+         * <p>
+         * Answers <code>201 Created</code> right away with the queue item as
+         * <code>Location</code>, or <code>200 OK</code> if an identical release
+         * waiting in the queue absorbed this one. The body carries the queue item
+         * id and URL, and the release version if the template only refers to
+         * parameters.
+         */
+        @RequirePOST
+        public HttpResponse doSchedule(StaplerRequest req) throws IOException, ServletException {
+            ReleaseWrapper.checkReleasePermission(project);
+
+            List<ParameterValue> paramValues;
+            try {
+                paramValues = createParameterValues(req, JSONObject.fromObject(IOUtils.toString(req.getReader())));
+            } catch (IllegalArgumentException e) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, project.getFullName(), e.getMessage());
+            } catch (JSONException e) {
+                return JsonResponses.error(HttpServletResponse.SC_BAD_REQUEST, project.getFullName(), "Malformed request: " + e.getMessage());
+            }
+
+            if (!project.isBuildable()) {
+                return JsonResponses.error(HttpServletResponse.SC_CONFLICT, project.getFullName(),
+                        Messages.ReleaseWrapper_ReleaseNotScheduled(project.getFullDisplayName()));
+            }
+            ScheduleResult result = scheduleRelease(new Cause.UserIdCause(), paramValues);
+            Queue.Item item = result.getItem();
+            if (item == null) {
+                return JsonResponses.error(HttpServletResponse.SC_CONFLICT, project.getFullName(),
+                        Messages.ReleaseWrapper_ReleaseNotScheduled(project.getFullDisplayName()));
+            }
+
+            String url = Jenkins.getActiveInstance().getRootUrlFromRequest() + item.getUrl();
+            JSONObject body = new JSONObject();
+            body.put("job", project.getFullName());
+            body.put("queueId", item.getId());
+            body.put("url", url);
+            String version = previewReleaseVersion(paramValues);
+            body.put("releaseVersion", version != null ? version : JSONNull.getInstance());
+            body.put("coalesced", !result.isCreated());
+            return JsonResponses.json(result.isCreated() ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_OK, url, body);
+        }
+
 		public List<Permalink> getPermalinks() {
 			return RELEASE;
 		}
 
     }
     
-    public static class ReleaseBuildBadgeAction implements BuildBadgeAction, MatrixChildAction {
+    /**
+     * Marks release builds. As a {@link Queue.QueueAction} it keeps a release from
+     * being merged with a queued build which is not a release, or the other way
+     * around; identical releases are merged on their parameters.
+     */
+    public static class ReleaseBuildBadgeAction implements BuildBadgeAction, MatrixChildAction, Queue.QueueAction {
         private String releaseVersion;
         
         public ReleaseBuildBadgeAction() {
@@ -730,6 +1083,19 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             return releaseVersion;
         }
         
+        /**
+         * @return whether a build with the given actions is to be scheduled
+         *         separately from the release carrying this action
+         */
+        public boolean shouldSchedule(List<Action> actions) {
+            for (Action action : actions) {
+                if (action instanceof ReleaseBuildBadgeAction) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
         public String getIconFileName() { return null; }
         public String getDisplayName() { return null; }
         public String getUrlName() { return null; }
@@ -747,6 +1113,13 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
         private List<BuildStep> postFailedMatrixBuildSteps = new ArrayList<BuildStep>();
         private List<BuildStep> postMatrixBuildSteps = new ArrayList<BuildStep>();
         private boolean isNotRelease = true;
+        private List<BuildStep> postSuccessfulConfigurationBuildSteps = new ArrayList<BuildStep>();
+        private List<BuildStep> postFailedConfigurationBuildSteps = new ArrayList<BuildStep>();
+        private List<BuildStep> postConfigurationBuildSteps = new ArrayList<BuildStep>();
+        private boolean preMatrixBuildStepsInBackground;
+        private ReleaseTimingAction.Phase configurationsPhase;
+        private Future<Boolean> preMatrixBuildStepsResult;
+        private ByteArrayOutputStream preMatrixBuildStepsOutput;
 
         public ReleaseAggregator(MatrixBuild build, Launcher launcher, BuildListener listener) {
             super(build, launcher, listener);
@@ -773,65 +1146,154 @@ public class ReleaseWrapper extends BuildWrapper implements MatrixAggregatable {
             this.postFailedMatrixBuildSteps = postFailedMatrixBuildSteps;
         }
 
+        public void setPreMatrixBuildStepsInBackground(boolean preMatrixBuildStepsInBackground) {
+            this.preMatrixBuildStepsInBackground = preMatrixBuildStepsInBackground;
+        }
+
+        public void setPostSuccessfulConfigurationBuildSteps(List<BuildStep> postSuccessfulConfigurationBuildSteps) {
+            this.postSuccessfulConfigurationBuildSteps = postSuccessfulConfigurationBuildSteps;
+        }
+
+        public void setPostFailedConfigurationBuildSteps(List<BuildStep> postFailedConfigurationBuildSteps) {
+            this.postFailedConfigurationBuildSteps = postFailedConfigurationBuildSteps;
+        }
+
+        public void setPostConfigurationBuildSteps(List<BuildStep> postConfigurationBuildSteps) {
+            this.postConfigurationBuildSteps = postConfigurationBuildSteps;
+        }
+
         @Override
         public boolean startBuild() throws InterruptedException, IOException {
             if (isNotRelease) {
                 return true;
             }
 
-            return executeBuildSteps(preMatrixBuildSteps, build, launcher, listener);
+            if (preMatrixBuildStepsInBackground && preMatrixBuildSteps != null && !preMatrixBuildSteps.isEmpty()) {
+                // the output is buffered so that it does not interleave with the configurations
+                preMatrixBuildStepsOutput = new ByteArrayOutputStream();
+                final BuildListener stepsListener = new StreamBuildListener(preMatrixBuildStepsOutput, build.getCharset());
+                preMatrixBuildStepsResult = ParallelReleaseSteps.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        return executeBuildSteps(preMatrixBuildSteps, ReleaseTimingAction.PhaseId.PRE_MATRIX_BUILD_STEPS, build, launcher, stepsListener);
+                    }
+                });
+                configurationsPhase = ReleaseTimingAction.of(build).start(ReleaseTimingAction.PhaseId.MATRIX_CONFIGURATIONS);
+                return true;
+            }
+
+            try {
+                return executeBuildSteps(preMatrixBuildSteps, ReleaseTimingAction.PhaseId.PRE_MATRIX_BUILD_STEPS, build, launcher, listener);
+            } finally {
+                configurationsPhase = ReleaseTimingAction.of(build).start(ReleaseTimingAction.PhaseId.MATRIX_CONFIGURATIONS);
+            }
         }
 
+        /**
+         * Runs the per-configuration release steps against the configuration
+         * that just completed, while the other configurations keep running.
+         * A failure of these steps fails the release.
+         * <p>
+         * Their timings go to the matrix build, saved as it completes, as the
+         * configuration itself was saved already and may still be saving.
+         */
         @Override
-        public boolean endBuild() throws InterruptedException, IOException {
-            if (isNotRelease) {
+        public boolean endRun(MatrixRun run) throws InterruptedException, IOException {
+            if (isNotRelease || (isEmpty(postSuccessfulConfigurationBuildSteps) && isEmpty(postFailedConfigurationBuildSteps)
+                    && isEmpty(postConfigurationBuildSteps))) {
                 return true;
             }
 
-            boolean shouldContinue = true;
+            listener.getLogger().println("[" + run.getParent().getDisplayName() + "]");
+            // run the steps where the configuration was built, falling back to the matrix build
+            Node node = run.getBuiltOn();
+            Launcher runLauncher = node != null ? node.createLauncher(listener) : launcher;
 
+            boolean shouldContinue = true;
             try {
-                Result result = build.getResult();
+                Result result = run.getResult();
 
                 if (result == null || result.isBetterOrEqualTo(Result.UNSTABLE)) {
-                    shouldContinue = executeBuildSteps(postSuccessfulMatrixBuildSteps, build, launcher, listener);
+                    shouldContinue = executeConfigurationBuildSteps(postSuccessfulConfigurationBuildSteps, ReleaseTimingAction.PhaseId.POST_SUCCESSFUL_CONFIGURATION_BUILD_STEPS, run, runLauncher);
                 } else {
-                    shouldContinue = executeBuildSteps(postFailedMatrixBuildSteps, build, launcher, listener);
+                    shouldContinue = executeConfigurationBuildSteps(postFailedConfigurationBuildSteps, ReleaseTimingAction.PhaseId.POST_FAILED_CONFIGURATION_BUILD_STEPS, run, runLauncher);
                 }
             } finally {
                 if (shouldContinue) {
-                    shouldContinue = executeBuildSteps(postMatrixBuildSteps, build, launcher, listener);
+                    shouldContinue = executeConfigurationBuildSteps(postConfigurationBuildSteps, ReleaseTimingAction.PhaseId.POST_CONFIGURATION_BUILD_STEPS, run, runLauncher);
                 }
             }
-            return shouldContinue;
+            if (!shouldContinue) {
+                build.setResult(Result.FAILURE);
+            }
+            return true;
         }
-    
-        private boolean executeBuildSteps(List<BuildStep> buildSteps, AbstractBuild build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
-            boolean shouldContinue = true;
 
-            // execute prebuild steps, stop processing if indicated
-            if (buildSteps != null) {
-                for (BuildStep buildStep : buildSteps) {
+        /**
+         * Executes release steps against the given configuration, timed as a
+         * phase of the matrix build.
+         */
+        private boolean executeConfigurationBuildSteps(List<BuildStep> buildSteps, ReleaseTimingAction.PhaseId phaseId,
+                MatrixRun run, Launcher runLauncher) throws InterruptedException, IOException {
+            if (isEmpty(buildSteps)) {
+                return true;
+            }
+            ReleaseTimingAction.Phase phase = ReleaseTimingAction.of(build).start(phaseId, run.getParent().getName());
+            return executeBuildSteps(buildSteps, phase, run, runLauncher, listener);
+        }
 
-                    if (!shouldContinue) {
-                        break;
-                    }
+        private static boolean isEmpty(List<BuildStep> buildSteps) {
+            return buildSteps == null || buildSteps.isEmpty();
+        }
 
-                    shouldContinue = buildStep.prebuild(build, listener);
-                }
+        @Override
+        public boolean endBuild() throws InterruptedException, IOException {
+            if (isNotRelease) {
+                return true;
+            }
 
-                // execute build step, stop processing if indicated
-                for (BuildStep buildStep : buildSteps) {
+            if (configurationsPhase != null) {
+                configurationsPhase.end();
+            }
+            boolean shouldContinue = true;
 
-                    if (!shouldContinue) {
-                        break;
-                    }
+            if (preMatrixBuildStepsResult != null && !joinPreMatrixBuildSteps()) {
+                build.setResult(Result.FAILURE);
+            }
 
-                    shouldContinue = buildStep.perform(build, launcher, listener);
+            try {
+                Result result = build.getResult();
+
+                if (result == null || result.isBetterOrEqualTo(Result.UNSTABLE)) {
+                    shouldContinue = executeBuildSteps(postSuccessfulMatrixBuildSteps, ReleaseTimingAction.PhaseId.POST_SUCCESSFUL_MATRIX_BUILD_STEPS, build, launcher, listener);
+                } else {
+                    shouldContinue = executeBuildSteps(postFailedMatrixBuildSteps, ReleaseTimingAction.PhaseId.POST_FAILED_MATRIX_BUILD_STEPS, build, launcher, listener);
+                }
+            } finally {
+                if (shouldContinue) {
+                    shouldContinue = executeBuildSteps(postMatrixBuildSteps, ReleaseTimingAction.PhaseId.POST_MATRIX_BUILD_STEPS, build, launcher, listener);
                 }
             }
-
             return shouldContinue;
         }
+
+        /**
+         * Waits for the steps before the release build and all matrix
+         * configurations, and writes their output to the build log.
+         *
+         * @return whether the steps succeeded
+         */
+        private boolean joinPreMatrixBuildSteps() throws InterruptedException, IOException {
+            listener.getLogger().println("[" + Messages.ReleaseTimingAction_PreMatrixBuildSteps() + "]");
+            try {
+                return preMatrixBuildStepsResult.get();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace(listener.error(Messages.ReleaseWrapper_PreMatrixBuildStepsFailed()));
+                return false;
+            } finally {
+                // only cancels steps still running when the build got aborted
+                preMatrixBuildStepsResult.cancel(true);
+                preMatrixBuildStepsOutput.writeTo(listener.getLogger());
+            }
+        }
     }
 }
@@ -3,12 +3,10 @@
  */
 package hudson.plugins.release;
 
-import hudson.Functions;
 import hudson.model.AbstractProject;
+import hudson.model.Describable;
 import hudson.model.Descriptor;
-import hudson.tasks.Builder;
-import hudson.tasks.Publisher;
-import java.util.LinkedList;
+import hudson.tasks.BuildStep;
 import java.util.List;
 
 /**
@@ -19,17 +17,23 @@ public class ReleaseWrapperHelper
     /** Retrieve a list of all build steps including publishers and builders 
      * 
      * @param project The project
-     * @return A list of descriptor's for both publishers and builders
+     * @return A shared, unmodifiable list of descriptor's for both publishers and builders
      */
     static public List<Descriptor> getBuildSteps(AbstractProject<?,?> project)
     {
-        List<Descriptor<Publisher>> publishers = Functions.getPublisherDescriptors(project);
-        List<Descriptor<Builder>> builders = Functions.getBuilderDescriptors(project);
-        
-        List<Descriptor> descriptors = new LinkedList<Descriptor>();
-        descriptors.addAll(publishers);
-        descriptors.addAll(builders);
-        
-        return descriptors;
+        return ReleaseStepDescriptors.applicableTo(project.getClass());
+    }
+
+    /** Retrieve the name of a build step as shown to users
+     * 
+     * @param buildStep The build step
+     * @return The display name of its descriptor, or its class name if it has none
+     */
+    static String getDisplayName(BuildStep buildStep)
+    {
+        if (buildStep instanceof Describable) {
+            return ((Describable<?>) buildStep).getDescriptor().getDisplayName();
+        }
+        return buildStep.getClass().getSimpleName();
     }
 }
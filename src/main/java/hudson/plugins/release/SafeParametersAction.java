@@ -1,7 +1,11 @@
 package hudson.plugins.release;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
 
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -17,6 +21,11 @@ import hudson.model.TaskListener;
 @Restricted(NoExternalUse.class)
 public class SafeParametersAction extends ParametersAction {
 
+    /**
+     * Environment variables of the parameters, computed once per run.
+     */
+    private transient volatile Map<String, String> environment;
+
     /**
      * At this point the list of parameter values is guaranteed to be safe, which is
      * parameter defined either at top level or release wrapper level.
@@ -28,6 +37,26 @@ public class SafeParametersAction extends ParametersAction {
         super(parameters);
     }
 
+    /**
+     * Gets the environment variables of the parameters, as contributed by the
+     * parameter values themselves.
+     *
+     * @since 2.7
+     */
+    @Nonnull
+    Map<String, String> getEnvironment(Run<?,?> r) {
+        Map<String, String> env = environment;
+        if (env == null) {
+            EnvVars vars = new EnvVars();
+            for (ParameterValue p : getParameters()) {
+                p.buildEnvironment(r, vars);
+            }
+            env = Collections.unmodifiableMap(vars);
+            environment = env;
+        }
+        return env;
+    }
+
     @Extension
     public static final class SafeParametersActionEnvironmentContributor extends EnvironmentContributor {
 
@@ -35,9 +64,7 @@ public class SafeParametersAction extends ParametersAction {
         public void buildEnvironmentFor(Run r, EnvVars envs, TaskListener listener) throws IOException, InterruptedException {
             SafeParametersAction action = r.getAction(SafeParametersAction.class);
             if (action != null) {
-                for (ParameterValue p : action.getParameters()) {
-                    envs.put(p.getName(), String.valueOf(p.getValue()));
-                }
+                envs.putAll(action.getEnvironment(r));
             }
         }
     }
@@ -23,7 +23,6 @@
  */
 package hudson.plugins.release;
 
-import hudson.model.BuildableItemWithBuildWrappers;
 import hudson.model.TopLevelItem;
 
 import org.apache.commons.lang.Validate;
@@ -40,16 +39,11 @@ final class ViewJobFilterUtils {
 	 * @param item
 	 *            a top level item to test. Can't be null.
 	 * @return whether the given top level item is a release job.
+	 * @see ReleaseJobRegistry
 	 */
 	static boolean isReleaseJob(TopLevelItem item) {
 		Validate.notNull(item, "The given top level item is null");
 
-		if (item instanceof BuildableItemWithBuildWrappers) {
-			final BuildableItemWithBuildWrappers job = (BuildableItemWithBuildWrappers) item;
-
-			return (job.getBuildWrappersList().get(ReleaseWrapper.class) != null);
-		}
-
-		return false;
+		return ReleaseJobRegistry.isReleaseJob(item);
 	}
 }
@@ -5,23 +5,28 @@ import hudson.FeedAdapter;
 import hudson.model.Cause;
 import hudson.model.Descriptor;
 import hudson.model.Job;
-import hudson.model.RSS;
 import hudson.model.Run;
 import hudson.model.User;
 import hudson.model.Cause.UserCause;
 import hudson.model.Cause.UserIdCause;
+import hudson.plugins.release.ReleaseIndex;
+import hudson.plugins.release.ReleaseJobRegistry;
 import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
 import hudson.plugins.view.dashboard.DashboardPortlet;
 import hudson.tasks.Mailer;
-import hudson.util.RunList;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.ServletException;
 import jenkins.model.Jenkins;
@@ -33,33 +38,147 @@ import org.kohsuke.stapler.StaplerResponse;
 
 public class RecentReleasesPortlet extends DashboardPortlet {
 
+	/**
+	 * Number of releases kept in the snapshot, enough for every view of the portlet.
+	 */
+	private static final int SNAPSHOT_SIZE = 50;
+
+	/**
+	 * Number of snapshots kept, one per set of jobs the dashboard shows to its users.
+	 */
+	private static final int SNAPSHOT_COUNT = 16;
+
+	/**
+	 * Snapshots by the jobs they are about, least recently used first, guarded by this.
+	 */
+	private transient Map<List<Job>, Snapshot> snapshots;
+
 	@DataBoundConstructor
 	public RecentReleasesPortlet(String name) {
 		super(name);
 	}
 	
+	/**
+	 * Gets the most recent completed release builds of the dashboard jobs, newest first.
+	 * <p>
+	 * The portlet, the dashboard main page and the feeds all read from one snapshot
+	 * of the {@value #SNAPSHOT_SIZE} most recent releases per set of jobs shown,
+	 * which is only recomputed once a release of one of these jobs completes or
+	 * is deleted. The snapshot only names the releases, their builds are
+	 * looked up as they are rendered.
+	 */
 	public Collection<Run> getRecentReleases(int max) {
-		LinkedList<Run> recentReleases = new LinkedList<Run>();
-		
-		for (Job job : getDashboard().getJobs()) {
-			// Keep going through jobs while there are more builds
-			// and (the recent releases is less than max or this run 
-			// is newer than the last in the list)
-			for (Run run = job.getLastCompletedBuild(); run != null && (recentReleases.size() < max || run.getTimestamp().compareTo(recentReleases.getLast().getTimestamp()) > 0); run = run.getPreviousBuild()) {
-				ReleaseBuildBadgeAction rbb = run.getAction(ReleaseBuildBadgeAction.class);
-				
-				if (rbb != null) {
-					// if you couldn't insert run, stop trying this job as next runs
-					// are even older
-					if (!insertRun(run, recentReleases, max)) {
-						break;
-					}
+		if (max > SNAPSHOT_SIZE) {
+			return computeRecentReleases(new ArrayList<Job>(getDashboard().getJobs()), max);
+		}
+
+		return resolve(getSnapshot().releases, max);
+	}
+
+	private Snapshot getSnapshot() {
+		return getSnapshot(new ArrayList<Job>(getDashboard().getJobs()));
+	}
+
+	/**
+	 * Gets the snapshot of the given jobs, as visible to the current user.
+	 */
+	Snapshot getSnapshot(List<Job> jobs) {
+		// read the counters first so that changes made while computing invalidate the result
+		long[] modifications = getModificationCounts(jobs);
+
+		Snapshot current;
+		synchronized (this) {
+			current = snapshots().get(jobs);
+		}
+		if (current == null || !Arrays.equals(current.modifications, modifications)) {
+			current = new Snapshot(modifications, mergeRecentReleases(jobs, SNAPSHOT_SIZE));
+			synchronized (this) {
+				snapshots().put(jobs, current);
+			}
+		}
+		return current;
+	}
+
+	private Map<List<Job>, Snapshot> snapshots() {
+		if (snapshots == null) {
+			snapshots = new LinkedHashMap<List<Job>, Snapshot>(SNAPSHOT_COUNT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<List<Job>, Snapshot> eldest) {
+					return size() > SNAPSHOT_COUNT;
 				}
+			};
+		}
+		return snapshots;
+	}
+
+	/**
+	 * @return the modification count of the release index of each job, -1 for jobs which are not release jobs
+	 */
+	private static long[] getModificationCounts(List<Job> jobs) {
+		long[] modifications = new long[jobs.size()];
+		for (int i = 0; i < modifications.length; i++) {
+			Job job = jobs.get(i);
+			modifications[i] = ReleaseJobRegistry.isReleaseJob(job) ? ReleaseIndex.get(job).getModificationCount() : -1;
+		}
+		return modifications;
+	}
+
+	static List<Run> computeRecentReleases(List<Job> jobs, int max) {
+		return resolve(mergeRecentReleases(jobs, max), max);
+	}
+
+	/**
+	 * The releases of each job come from its {@link ReleaseIndex} already ordered
+	 * newest first, so they are merged through a heap holding one cursor per job:
+	 * no build gets loaded and the merge stops after {@code max} releases.
+	 * Jobs which are not release jobs are skipped without looking at their builds.
+	 */
+	static List<ReleaseRef> mergeRecentReleases(List<Job> jobs, int max) {
+		List<ReleaseRef> recentReleases = new ArrayList<ReleaseRef>();
+		if (max <= 0) {
+			return recentReleases;
+		}
+
+		PriorityQueue<ReleaseCursor> cursors = new PriorityQueue<ReleaseCursor>();
+		for (Job job : jobs) {
+			if (!ReleaseJobRegistry.isReleaseJob(job)) {
+				continue;
+			}
+			ReleaseCursor cursor = new ReleaseCursor(job);
+			if (cursor.next()) {
+				cursors.add(cursor);
 			}
 		}
-		
+
+		while (recentReleases.size() < max && !cursors.isEmpty()) {
+			ReleaseCursor cursor = cursors.poll();
+			recentReleases.add(new ReleaseRef(cursor.job.getFullName(), cursor.number));
+			if (cursor.next()) {
+				cursors.add(cursor);
+			}
+		}
+
 		return recentReleases;
 	}
+
+	/**
+	 * Looks up the builds of the given releases, skipping those which went away.
+	 */
+	private static List<Run> resolve(List<ReleaseRef> releases, int max) {
+		List<Run> runs = new ArrayList<Run>(Math.max(0, Math.min(releases.size(), max)));
+		Jenkins jenkins = Jenkins.getActiveInstance();
+		for (ReleaseRef release : releases) {
+			if (runs.size() >= max) {
+				break;
+			}
+			Job<?,?> job = jenkins.getItemByFullName(release.job, Job.class);
+			Run<?,?> run = job != null ? job.getBuildByNumber(release.number) : null;
+			if (run != null) {
+				runs.add(run);
+			}
+		}
+		return runs;
+	}
 	
 	/**
 	 * Get the release version from this run
@@ -72,50 +191,97 @@ public class RecentReleasesPortlet extends DashboardPortlet {
 		return rbb.getReleaseVersion();
 	}
 	
-	private boolean insertRun(Run run, LinkedList<Run> recentReleases, int max) {
-		ListIterator<Run> iter = recentReleases.listIterator();
-		Run recentRun = null;
-		
-		do {
-			if (iter.hasNext()) {
-				recentRun = iter.next();
-			} else {
-				recentRun = null;
-			}
-			
-			// if we're at the end of the recent releases list and the list has room for another
-			// or this run is more recent than current position, then insert
-			if ((recentRun == null && recentReleases.size() < max) || (recentRun != null && run.getTimestamp().compareTo(recentRun.getTimestamp()) > 0)) {
-				// back up one and add to list
-				if (!recentReleases.isEmpty() && recentRun != null) {
-					iter.previous();
-				}
-				
-				iter.add(run);
-				
-				// remove last on list if size == max - might be removing what we just added
-				if (recentReleases.size() > max) {
-					recentReleases.removeLast();
-				}
-				
-				return true;
+	/**
+	 * One release, named by the full name of its job and its build number.
+	 */
+	static final class ReleaseRef {
+		private final String job;
+		private final int number;
+
+		ReleaseRef(String job, int number) {
+			this.job = job;
+			this.number = number;
+		}
+	}
+
+	/**
+	 * Immutable view of the most recent releases of the dashboard jobs. It
+	 * holds no build, so that it does not keep build records from being
+	 * evicted, or deleted builds around.
+	 */
+	static final class Snapshot {
+		private final long[] modifications;
+		private final List<ReleaseRef> releases;
+		/**
+		 * Time the snapshot was computed, at or after the last change of its releases.
+		 */
+		private final long lastModified = System.currentTimeMillis();
+		/**
+		 * Full name of the users who started the releases, by user id, for the feeds.
+		 */
+		private final ConcurrentMap<String, String> authors = new ConcurrentHashMap<String, String>();
+
+		Snapshot(long[] modifications, List<ReleaseRef> releases) {
+			this.modifications = modifications;
+			this.releases = Collections.unmodifiableList(releases);
+		}
+	}
+
+	/**
+	 * Walks the completed release builds of one job, newest first.
+	 */
+	private static final class ReleaseCursor implements Comparable<ReleaseCursor> {
+		private final Job<?,?> job;
+		private final ReleaseIndex index;
+		private int number = Integer.MAX_VALUE;
+		private long timestamp;
+
+		ReleaseCursor(Job<?,?> job) {
+			this.job = job;
+			this.index = ReleaseIndex.get(job);
+		}
+
+		/**
+		 * Moves to the next older release.
+		 *
+		 * @return false if there is none
+		 */
+		boolean next() {
+			ReleaseIndex.Entry entry = index.getPreviousCompleted(number);
+			if (entry == null) {
+				return false;
 			}
-		} while (recentRun != null);
-		
-		return false;
+			number = entry.getNumber();
+			timestamp = entry.getTimestamp();
+			return true;
+		}
+
+		/**
+		 * Orders the cursor with the newest current release first.
+		 */
+		public int compareTo(ReleaseCursor other) {
+			return Long.compare(other.timestamp, timestamp);
+		}
 	}
-	
+
 	public void doRssAll( StaplerRequest req, StaplerResponse rsp ) throws IOException, ServletException {
-        rss(req, rsp, " all builds", RunList.fromRuns(getRecentReleases(20)));
+        rss(req, rsp, " all builds", false);
     }
 
     public void doRssFailed( StaplerRequest req, StaplerResponse rsp ) throws IOException, ServletException {
-        rss(req, rsp, " failed builds", RunList.fromRuns(getRecentReleases(20)).failureOnly());
+        rss(req, rsp, " failed builds", true);
     }
 
-    private void rss(StaplerRequest req, StaplerResponse rsp, String suffix, RunList runs) throws IOException, ServletException {
-        RSS.forwardToRss(getDisplayName()+ suffix, getDashboard().getUrl() + getUrl(),
-            runs.newBuilds(), new RelativePathFeedAdapter(getDashboard().getUrl() + getUrl()), req, rsp );
+    /**
+     * Writes the feed straight from the snapshot, answering feed readers polling
+     * an unchanged feed with 304 Not Modified.
+     */
+    private void rss(StaplerRequest req, StaplerResponse rsp, String suffix, boolean failedOnly) throws IOException, ServletException {
+        Snapshot current = getSnapshot();
+        List<Run> releases = resolve(current.releases, 20);
+        String url = getDashboard().getUrl() + getUrl();
+        new ReleaseFeed(getDisplayName() + suffix, url, ReleaseFeed.newBuilds(releases, failedOnly),
+            new RelativePathFeedAdapter(url, current.authors), current.lastModified).write(req, rsp);
     }
 	
     public static class DescriptorImpl extends Descriptor<DashboardPortlet> {
@@ -137,9 +303,11 @@ public class RecentReleasesPortlet extends DashboardPortlet {
 	
 	private class RelativePathFeedAdapter implements FeedAdapter<Run> {
 		private String url;
+		private final ConcurrentMap<String, String> authors;
 		
-		RelativePathFeedAdapter(String url) {
+		RelativePathFeedAdapter(String url, ConcurrentMap<String, String> authors) {
 			this.url = url;
+			this.authors = authors;
 		}
 		
         public String getEntryTitle(Run entry) {
@@ -170,18 +338,27 @@ public class RecentReleasesPortlet extends DashboardPortlet {
             // and report rss entry as user who kicked off build
             List<Cause> causes = entry.getCauses();
             for (Cause cause : causes) {
-                final String userName;
+                final String userId;
                 if (cause instanceof UserIdCause) {
-                    userName = ((UserIdCause)cause).getUserName();
+                    // not getUserName(), which looks the user up for every entry
+                    userId = ((UserIdCause)cause).getUserId();
+                    if (userId == null) {
+                        return ((UserIdCause)cause).getUserName();
+                    }
                 } else if (cause instanceof UserCause) {
-                    userName = ((UserCause)cause).getUserName();
+                    userId = ((UserCause)cause).getUserName();
                 } else {
-                    userName = null;
+                    userId = null;
                 }
                 
-                if (userName != null) {
-                    final User usr = User.get(userName, false, Collections.emptyMap());
-                    return usr != null ? usr.getFullName() : userName;
+                if (userId != null) {
+                    String fullName = authors.get(userId);
+                    if (fullName == null) {
+                        final User usr = User.get(userId, false, Collections.emptyMap());
+                        fullName = usr != null ? usr.getFullName() : userId;
+                        authors.putIfAbsent(userId, fullName);
+                    }
+                    return fullName;
                 }
             }
 
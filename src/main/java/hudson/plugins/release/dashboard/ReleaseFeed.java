@@ -0,0 +1,243 @@
+package hudson.plugins.release.dashboard;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.lang.time.FastDateFormat;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.FeedAdapter;
+import hudson.model.RSS;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.util.RunList;
+import jenkins.model.Jenkins;
+
+/**
+ * Feed of release builds written straight to the response, in Atom format or,
+ * with {@code flavor=rss}, in RSS 2.0 format, like {@link RSS#forwardToRss}.
+ * <p>
+ * Each response carries an ETag, derived from the entries, and a Last-Modified
+ * header, the time the releases the feed is made of last changed. Requests for
+ * an unchanged feed are answered with 304 Not Modified without writing it.
+ *
+ * @since 2.7
+ */
+final class ReleaseFeed {
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private static final FastDateFormat ATOM_DATE = FastDateFormat.getInstance("yyyy-MM-dd'T'HH:mm:ss'Z'",
+            TimeZone.getTimeZone("UTC"));
+
+    private static final FastDateFormat RSS_DATE = FastDateFormat.getInstance("EEE, dd MMM yyyy HH:mm:ss Z",
+            Locale.US);
+
+    /**
+     * Same feed id as the feeds of Jenkins itself.
+     */
+    private static final String FEED_ID = "urn:uuid:903deee0-7bfa-11db-9fe1-0800200c9a66";
+
+    private final String title;
+
+    /**
+     * URL of the page the feed is about, relative to the root URL.
+     */
+    private final String url;
+
+    private final List<Run> runs;
+
+    private final FeedAdapter<Run> adapter;
+
+    private final long lastModified;
+
+    /**
+     * @param lastModified the time the releases the feed is made of last changed,
+     *        which covers releases deleted as well as added
+     */
+    ReleaseFeed(String title, String url, List<Run> runs, FeedAdapter<Run> adapter, long lastModified) {
+        this.title = title;
+        this.url = url;
+        this.runs = runs;
+        this.adapter = adapter;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Only keeps the releases a feed publishes, like {@link RunList#newBuilds()}:
+     * the 10 most recent ones, and any other one of the last 7 days.
+     *
+     * @param releases completed releases, newest first
+     * @param failedOnly whether to only keep the releases which did not succeed
+     */
+    static List<Run> newBuilds(Collection<Run> releases, boolean failedOnly) {
+        Calendar cal = new GregorianCalendar();
+        cal.add(Calendar.DAY_OF_YEAR, -7);
+        long weekAgo = cal.getTimeInMillis();
+
+        List<Run> runs = new ArrayList<Run>();
+        for (Run run : releases) {
+            if (failedOnly && run.getResult() == Result.SUCCESS) {
+                continue;
+            }
+            if (runs.size() >= 10 && run.getTimeInMillis() < weekAgo) {
+                break;
+            }
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    /**
+     * @return an entity tag changing whenever an entry is added, removed or changes result
+     */
+    String getETag() {
+        int hash = 17;
+        for (Run run : runs) {
+            hash = 31 * hash + run.getParent().getFullName().hashCode();
+            hash = 31 * hash + run.getNumber();
+            hash = 31 * hash + String.valueOf(run.getResult()).hashCode();
+        }
+        return '"' + Integer.toHexString(runs.size()) + '-' + Integer.toHexString(hash) + '"';
+    }
+
+    void write(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        String etag = getETag();
+        rsp.setHeader("ETag", etag);
+        rsp.setDateHeader("Last-Modified", lastModified);
+        if (isNotModified(req, etag)) {
+            rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        boolean rss = "rss".equals(req.getParameter("flavor"));
+        rsp.setContentType(rss ? "text/xml;charset=UTF-8" : "application/atom+xml;charset=UTF-8");
+        String rootUrl = Jenkins.getActiveInstance().getRootUrl();
+        if (rootUrl == null) {
+            rootUrl = Jenkins.getActiveInstance().getRootUrlFromRequest();
+        }
+        try {
+            XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(rsp.getWriter());
+            xml.writeStartDocument("UTF-8", "1.0");
+            if (rss) {
+                writeRss(xml, rootUrl);
+            } else {
+                writeAtom(xml, rootUrl);
+            }
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private boolean isNotModified(StaplerRequest req, String etag) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = req.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have a resolution of one second
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private void writeAtom(XMLStreamWriter xml, String rootUrl) throws XMLStreamException {
+        xml.writeStartElement("feed");
+        xml.writeDefaultNamespace("http://www.w3.org/2005/Atom");
+        element(xml, "title", title);
+        link(xml, rootUrl + url);
+        element(xml, "updated", ATOM_DATE.format(lastModified));
+        author(xml, "Jenkins Server");
+        element(xml, "id", FEED_ID);
+
+        for (Run run : runs) {
+            xml.writeStartElement("entry");
+            element(xml, "title", adapter.getEntryTitle(run));
+            link(xml, rootUrl + adapter.getEntryUrl(run));
+            element(xml, "id", adapter.getEntryID(run));
+            String timestamp = ATOM_DATE.format(adapter.getEntryTimestamp(run));
+            element(xml, "published", timestamp);
+            element(xml, "updated", timestamp);
+            String description = adapter.getEntryDescription(run);
+            if (description != null) {
+                element(xml, "content", description);
+            }
+            author(xml, adapter.getEntryAuthor(run));
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private void writeRss(XMLStreamWriter xml, String rootUrl) throws XMLStreamException {
+        xml.writeStartElement("rss");
+        xml.writeAttribute("version", "2.0");
+        xml.writeStartElement("channel");
+        element(xml, "title", title);
+        element(xml, "link", rootUrl + url);
+        element(xml, "description", title);
+
+        for (Run run : runs) {
+            xml.writeStartElement("item");
+            element(xml, "title", adapter.getEntryTitle(run));
+            element(xml, "link", rootUrl + adapter.getEntryUrl(run));
+            xml.writeStartElement("guid");
+            xml.writeAttribute("isPermaLink", "false");
+            xml.writeCharacters(adapter.getEntryID(run));
+            xml.writeEndElement();
+            element(xml, "pubDate", RSS_DATE.format(adapter.getEntryTimestamp(run)));
+            String description = adapter.getEntryDescription(run);
+            if (description != null) {
+                element(xml, "description", description);
+            }
+            element(xml, "author", adapter.getEntryAuthor(run));
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private static void element(XMLStreamWriter xml, String name, String text) throws XMLStreamException {
+        xml.writeStartElement(name);
+        if (text != null) {
+            xml.writeCharacters(text);
+        }
+        xml.writeEndElement();
+    }
+
+    private static void link(XMLStreamWriter xml, String href) throws XMLStreamException {
+        xml.writeEmptyElement("link");
+        xml.writeAttribute("rel", "alternate");
+        xml.writeAttribute("type", "text/html");
+        xml.writeAttribute("href", href);
+    }
+
+    private static void author(XMLStreamWriter xml, String name) throws XMLStreamException {
+        xml.writeStartElement("author");
+        element(xml, "name", name);
+        xml.writeEndElement();
+    }
+}
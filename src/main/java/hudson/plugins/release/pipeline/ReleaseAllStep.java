@@ -0,0 +1,81 @@
+package hudson.plugins.release.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Pipeline step releasing several jobs at once, completing when all of the
+ * releases have completed with a map of their builds by job name.
+ * <p>
+ * All releases are scheduled together. With {@link #isFailFast()} the step
+ * fails as soon as one release fails, otherwise once all of them completed.
+ * Releases still running keep running either way.
+ *
+ * @since 2.7
+ */
+public class ReleaseAllStep extends Step {
+
+    @Nonnull
+    private final List<ReleaseJob> jobs;
+
+    private boolean failFast;
+
+    @DataBoundConstructor
+    public ReleaseAllStep(List<ReleaseJob> jobs) {
+        this.jobs = jobs != null ? new ArrayList<>(jobs) : new ArrayList<ReleaseJob>();
+    }
+
+    @Nonnull
+    public List<ReleaseJob> getJobs() {
+        return jobs;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    @DataBoundSetter
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    @Override
+    public StepExecution start(StepContext stepContext) throws Exception {
+        return new ReleaseAllStepExecution(stepContext, this);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "releaseAll";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.ReleaseAllStep_DisplayName();
+        }
+
+        @Override
+        public Set<Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, TaskListener.class);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package hudson.plugins.release.pipeline;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
+
+import hudson.AbortException;
+import hudson.console.ModelHyperlinkNote;
+import hudson.model.ParameterValue;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+
+/**
+ * Runs a {@link ReleaseAllStep}: schedules all releases at once, then collects
+ * their completions as reported by {@link ReleaseTriggerListener}.
+ *
+ * @since 2.7
+ */
+public class ReleaseAllStepExecution extends StepExecution {
+    private static final Logger LOGGER = Logger.getLogger(ReleaseAllStepExecution.class.getName());
+
+    /**
+     * Running executions by step context, so that completed releases are
+     * reported to their step without looking at any other step execution.
+     */
+    private static final ConcurrentMap<StepContext, ReleaseAllStepExecution> RUNNING = new ConcurrentHashMap<>();
+
+    transient ReleaseAllStep step;
+
+    private final boolean failFast;
+
+    /**
+     * Queue item id of each release by job name, in step order.
+     */
+    private final Map<String, Long> queueIds = new LinkedHashMap<>();
+
+    /**
+     * Externalizable id of each completed release by job name.
+     */
+    private final Map<String, String> completed = new LinkedHashMap<>();
+
+    /**
+     * Failure of each failed release by job name.
+     */
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    private boolean done;
+
+    public ReleaseAllStepExecution(@Nonnull StepContext context, @Nonnull ReleaseAllStep step) {
+        super(context);
+        this.step = step;
+        this.failFast = step.isFailFast();
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        if (step.getJobs().isEmpty()) {
+            getContext().onSuccess(new LinkedHashMap<String, RunWrapper>());
+            return true;
+        }
+
+        // resolve every job first, so that nothing is released if one is wrong
+        final List<ParameterizedJobMixIn.ParameterizedJob> projects = new ArrayList<>();
+        final List<List<ParameterValue>> parameters = new ArrayList<>();
+        for (ReleaseJob job : step.getJobs()) {
+            if (queueIds.containsKey(job.getJob())) {
+                throw new AbortException("Job " + job.getJob() + " is listed more than once");
+            }
+            ParameterizedJobMixIn.ParameterizedJob project = ReleaseStepExecution.findJob(job.getJob());
+            projects.add(project);
+            parameters.add(ReleaseStepExecution.updateParametersWithDefaults(project, new ArrayList<>(job.getParameters())));
+            queueIds.put(job.getJob(), null);
+        }
+
+        final Run<?,?> upstream = getContext().get(Run.class);
+        final AbortException[] failure = new AbortException[1];
+        RUNNING.put(getContext(), this);
+        Queue.withLock(new Runnable() {
+            @Override
+            public void run() {
+                List<Queue.Item> scheduled = new ArrayList<>();
+                int i = 0;
+                for (String jobName : queueIds.keySet()) {
+                    try {
+                        ReleaseTriggerAction action = new ReleaseTriggerAction(getContext(), jobName);
+                        Queue.ScheduleResult result = ReleaseStepExecution.schedule(projects.get(i), parameters.get(i),
+                                upstream, action);
+                        if (result.isCreated()) {
+                            scheduled.add(result.getCreateItem());
+                        }
+                        queueIds.put(jobName, result.getItem().getId());
+                    } catch (AbortException e) {
+                        failure[0] = e;
+                        cancel(scheduled);
+                        return;
+                    }
+                    i++;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        for (ParameterizedJobMixIn.ParameterizedJob project : projects) {
+            println("Releasing project: " + ModelHyperlinkNote.encodeTo(project));
+        }
+        return false;
+    }
+
+    /**
+     * Cancels the releases scheduled by this step when another one could not
+     * be scheduled. Releases folded into one already queued are left alone,
+     * as they are not this step's own.
+     */
+    private void cancel(List<Queue.Item> scheduled) {
+        synchronized (this) {
+            // the cancellations are not reported as failed releases
+            done = true;
+        }
+        RUNNING.remove(getContext());
+        Queue queue = Jenkins.getActiveInstance().getQueue();
+        for (Queue.Item item : scheduled) {
+            queue.cancel(item);
+        }
+    }
+
+    /**
+     * Records the completion of one release of a running {@link ReleaseAllStep}.
+     *
+     * @param failure the failure of the release, null if it succeeded
+     */
+    static void onReleaseCompleted(ReleaseTriggerAction.Trigger trigger, @CheckForNull Run<?,?> run,
+            @CheckForNull Throwable failure) {
+        ReleaseAllStepExecution execution = RUNNING.get(trigger.context);
+        if (execution != null) {
+            execution.completed(trigger.releaseKey, run, failure);
+        } else {
+            LOGGER.log(Level.FINE, "no running step waits on {0} from {1}", new Object[] {run, trigger.context});
+        }
+    }
+
+    private synchronized void completed(String jobName, @CheckForNull Run<?,?> run, @CheckForNull Throwable failure) {
+        if (done || !queueIds.containsKey(jobName) || completed.containsKey(jobName) || failures.containsKey(jobName)) {
+            return;
+        }
+        LOGGER.log(Level.FINE, "release of {0} completed as {1}", new Object[] {jobName, run});
+
+        if (failure == null) {
+            completed.put(jobName, run.getExternalizableId());
+        } else {
+            failures.put(jobName, failure.getMessage());
+            if (failFast) {
+                done = true;
+                RUNNING.remove(getContext());
+                getContext().onFailure(failure);
+                return;
+            }
+        }
+
+        if (completed.size() + failures.size() == queueIds.size()) {
+            done = true;
+            RUNNING.remove(getContext());
+            if (failures.isEmpty()) {
+                Map<String, RunWrapper> runs = new LinkedHashMap<>();
+                for (Map.Entry<String, String> e : completed.entrySet()) {
+                    runs.put(e.getKey(), new RunWrapper(Run.fromExternalizableId(e.getValue()), false));
+                }
+                getContext().onSuccess(runs);
+            } else {
+                getContext().onFailure(new AbortException("Releases failed: " + failures));
+            }
+        }
+    }
+
+    /**
+     * Catches up with releases which completed while this execution was not
+     * loaded, e.g. across a restart.
+     */
+    @Override
+    public void onResume() {
+        super.onResume();
+        synchronized (this) {
+            if (!done) {
+                RUNNING.put(getContext(), this);
+            }
+        }
+        for (Map.Entry<String, Long> e : new ArrayList<>(queueIds.entrySet())) {
+            Run<?,?> run = e.getValue() != null ? ReleaseStepExecution.findRun(e.getKey(), e.getValue()) : null;
+            if (run != null && !run.isBuilding() && run.getAction(ReleaseTriggerAction.class) == null) {
+                if (run.getResult() == Result.SUCCESS) {
+                    completed(e.getKey(), run, null);
+                } else {
+                    completed(e.getKey(), run, new AbortException(run.getFullDisplayName() + " completed with status " + run.getResult()));
+                }
+            }
+        }
+    }
+
+    private void println(String message) throws IOException, InterruptedException {
+        TaskListener taskListener = getContext().get(TaskListener.class);
+        if (taskListener == null) return;
+        PrintStream taskLogger = taskListener.getLogger();
+        if (taskLogger == null) return;
+        taskLogger.println(message);
+    }
+
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        synchronized (this) {
+            done = true;
+        }
+        RUNNING.remove(getContext());
+        ReleaseTriggerAction.stopStreaming(getContext());
+        getContext().onFailure(cause);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,56 @@
+package hudson.plugins.release.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.ParameterValue;
+
+/**
+ * One job released by the {@link ReleaseAllStep}, with its release parameters.
+ *
+ * @since 2.7
+ */
+public class ReleaseJob extends AbstractDescribableImpl<ReleaseJob> {
+    private final String job;
+    @Nonnull
+    private List<ParameterValue> parameters = new ArrayList<>();
+
+    @DataBoundConstructor
+    public ReleaseJob(String job) {
+        this.job = job;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    @Nonnull
+    public List<ParameterValue> getParameters() {
+        return parameters;
+    }
+
+    @DataBoundSetter
+    public void setParameters(List<ParameterValue> parameters) {
+        if (parameters == null) {
+            this.parameters = new ArrayList<>();
+        } else {
+            this.parameters = parameters;
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<ReleaseJob> {
+        @Override
+        public String getDisplayName() {
+            return Messages.ReleaseJob_DisplayName();
+        }
+    }
+}
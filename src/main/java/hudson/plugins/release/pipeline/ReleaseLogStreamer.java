@@ -0,0 +1,147 @@
+package hudson.plugins.release.pipeline;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.console.ModelHyperlinkNote;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.util.Timer;
+
+/**
+ * Copies the console output of a running release into the log of the step
+ * waiting on it, each time from where the previous copy stopped.
+ * <p>
+ * At most {@link #MAX_STREAMED_BYTES} are copied, the rest of the output is
+ * only available from the release build itself.
+ *
+ * @since 2.7
+ */
+final class ReleaseLogStreamer implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(ReleaseLogStreamer.class.getName());
+
+    /**
+     * Upper bound of the release output copied into the log of the waiting step.
+     */
+    static final long MAX_STREAMED_BYTES = Long.getLong(ReleaseLogStreamer.class.getName() + ".maxBytes", 1024 * 1024);
+
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private final Run<?,?> run;
+
+    private final PrintStream out;
+
+    /**
+     * Position in the release log up to which the output has been copied.
+     */
+    private long offset;
+
+    private long remaining = MAX_STREAMED_BYTES;
+
+    private ScheduledFuture<?> future;
+
+    private ReleaseLogStreamer(Run<?,?> run, PrintStream out) {
+        this.run = run;
+        this.out = out;
+    }
+
+    /**
+     * Starts copying the output of the given release until {@link #finish()}.
+     */
+    static ReleaseLogStreamer start(Run<?,?> run, TaskListener listener) {
+        ReleaseLogStreamer streamer = new ReleaseLogStreamer(run, listener.getLogger());
+        synchronized (streamer) {
+            streamer.future = Timer.get().scheduleWithFixedDelay(streamer, POLL_INTERVAL_MS, POLL_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+        return streamer;
+    }
+
+    @Override
+    public void run() {
+        try {
+            copy();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "failed to copy the output of " + run, e);
+        }
+    }
+
+    /**
+     * Copies the output written since the previous copy.
+     */
+    private synchronized void copy() throws IOException {
+        if (remaining <= 0) {
+            return;
+        }
+        BoundedOutputStream bounded = new BoundedOutputStream(out, remaining);
+        offset = run.getLogText().writeLogTo(offset, bounded);
+        remaining -= bounded.written;
+        if (bounded.truncated) {
+            remaining = 0;
+            stop();
+            out.println();
+            out.println("Output of the release truncated after " + MAX_STREAMED_BYTES + " bytes, see "
+                    + ModelHyperlinkNote.encodeTo("/" + run.getUrl() + "console", run.getFullDisplayName()));
+        }
+    }
+
+    /**
+     * Stops copying, once the rest of the output has been copied.
+     */
+    synchronized void finish() {
+        stop();
+        run();
+    }
+
+    /**
+     * Stops copying at once.
+     */
+    synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    /**
+     * Passes bytes through up to a limit, and drops the rest.
+     */
+    private static final class BoundedOutputStream extends FilterOutputStream {
+        private final long limit;
+        long written;
+        boolean truncated;
+
+        BoundedOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (written < limit) {
+                out.write(b);
+                written++;
+            } else {
+                truncated = true;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int n = (int) Math.min(len, limit - written);
+            if (n > 0) {
+                out.write(b, off, n);
+                written += n;
+            }
+            if (n < len) {
+                truncated = true;
+            }
+        }
+    }
+}
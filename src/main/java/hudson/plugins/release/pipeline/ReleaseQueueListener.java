@@ -15,12 +15,25 @@ import hudson.model.queue.QueueListener;
 @Extension
 @Restricted(NoExternalUse.class)
 public class ReleaseQueueListener extends QueueListener {
+    /**
+     * Registers releases waited on as they enter the queue, under the queue
+     * lock and so before they can start.
+     */
+    @Override
+    public void onEnterWaiting(Queue.WaitingItem wi) {
+        ReleaseTriggerAction action = wi.getAction(ReleaseTriggerAction.class);
+        if (action != null) {
+            action.register(wi.getId());
+        }
+    }
+
     @Override
     public void onLeft(Queue.LeftItem li) {
         if(li.isCancelled()){
             for (ReleaseTriggerAction.Trigger trigger : ReleaseTriggerAction.triggersFor(li)) {
-                trigger.context.onFailure(new AbortException("Pipeline Release plugin: build of " + li.task.getFullDisplayName() + " was cancelled"));
+                trigger.onFailure(null, new AbortException("Pipeline Release plugin: build of " + li.task.getFullDisplayName() + " was cancelled"));
             }
+            ReleaseTriggerAction.unregister(li.getId());
         }
     }
 
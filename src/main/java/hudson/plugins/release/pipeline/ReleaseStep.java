@@ -50,6 +50,8 @@ public class ReleaseStep extends Step {
     private String job;
     @Nonnull
     private List<ParameterValue> parameters;
+    private boolean wait = true;
+    private boolean streamLog;
 
     @DataBoundConstructor
     public ReleaseStep(String job) {
@@ -78,6 +80,33 @@ public class ReleaseStep extends Step {
         }
     }
 
+    /**
+     * Whether the step waits for the release to complete. Otherwise it returns
+     * the id of the queue item of the release at once, to be passed to
+     * {@link WaitForReleaseStep} later on.
+     */
+    public boolean isWait() {
+        return wait;
+    }
+
+    @DataBoundSetter
+    public void setWait(boolean wait) {
+        this.wait = wait;
+    }
+
+    /**
+     * Whether the console output of the release is copied into the log of
+     * this step while it waits for the release.
+     */
+    public boolean isStreamLog() {
+        return streamLog;
+    }
+
+    @DataBoundSetter
+    public void setStreamLog(boolean streamLog) {
+        this.streamLog = streamLog;
+    }
+
     @Override
     public StepExecution start(StepContext stepContext) throws Exception {
         return new ReleaseStepExecution(stepContext, this);
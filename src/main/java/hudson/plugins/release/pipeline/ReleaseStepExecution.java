@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 import org.jenkinsci.plugins.workflow.steps.StepContext;
@@ -24,6 +25,8 @@ import hudson.model.ParameterValue;
 import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.plugins.release.ReleaseIndex;
+import hudson.plugins.release.ReleaseJobRegistry;
 import hudson.plugins.release.ReleaseWrapper;
 import hudson.plugins.release.SafeParametersAction;
 import jenkins.model.Jenkins;
@@ -43,7 +46,7 @@ public class ReleaseStepExecution extends StepExecution {
         this.step = step;
     }
 
-    private List<ParameterValue> updateParametersWithDefaults(ParameterizedJobMixIn.ParameterizedJob project,
+    static List<ParameterValue> updateParametersWithDefaults(ParameterizedJobMixIn.ParameterizedJob project,
             List<ParameterValue> parameters) throws AbortException {
 
         if (project instanceof BuildableItemWithBuildWrappers) {
@@ -71,34 +74,86 @@ public class ReleaseStepExecution extends StepExecution {
 
     @Override
     public boolean start() throws Exception {
-        if (step.getJob() == null) {
+        final ParameterizedJobMixIn.ParameterizedJob project = findJob(step.getJob());
+        println("Releasing project: " + ModelHyperlinkNote.encodeTo(project));
+
+        LOGGER.log(Level.FINER, "scheduling a release of {0} from {1}", new Object[] { project, getContext() });
+        if (!step.isWait()) {
+            // nobody waits on this release until waitForRelease is called with its queue item id
+            Queue.ScheduleResult result = schedule(project, updateParametersWithDefaults(project, step.getParameters()),
+                    getContext().get(Run.class), null);
+            getContext().onSuccess(result.getItem().getId());
+            return true;
+        }
+
+        schedule(project, updateParametersWithDefaults(project, step.getParameters()),
+                getContext().get(Run.class), new ReleaseTriggerAction(getContext(), null, step.isStreamLog()));
+
+        return false;
+    }
+
+    /**
+     * Finds the job to release by its full name.
+     */
+    static ParameterizedJobMixIn.ParameterizedJob findJob(String jobName) throws AbortException {
+        if (jobName == null) {
             throw new AbortException("Job name is not defined.");
         }
 
         final ParameterizedJobMixIn.ParameterizedJob project = Jenkins.getActiveInstance().
-                getItemByFullName(step.getJob(), ParameterizedJobMixIn.ParameterizedJob.class);;
+                getItemByFullName(jobName, ParameterizedJobMixIn.ParameterizedJob.class);
         if (project == null) {
-            throw new AbortException("No parametrized job named " + step.getJob() + " found");
+            throw new AbortException("No parametrized job named " + jobName + " found");
         }
-        println("Releasing project: " + ModelHyperlinkNote.encodeTo(project));
+        return project;
+    }
 
-        LOGGER.log(Level.FINER, "scheduling a release of {0} from {1}", new Object[] { project, getContext() });
-        Run run = getContext().get(Run.class);
-        List<Action> actions = new ArrayList<>(3);
-        actions.add(new ReleaseTriggerAction(getContext()));
+    /**
+     * Finds the build of a release by the id of its queue item, through the
+     * {@link ReleaseIndex} of the job.
+     *
+     * @return null if there is no such build, e.g. if the release is still queued
+     */
+    @CheckForNull
+    static Run<?,?> findRun(String jobName, long queueId) {
+        Job<?,?> job = Jenkins.getActiveInstance().getItemByFullName(jobName, Job.class);
+        if (job == null || !ReleaseJobRegistry.isReleaseJob(job)) {
+            return null;
+        }
+        Integer number = ReleaseIndex.get(job).getNumberByQueueId(queueId);
+        return number != null ? job.getBuildByNumber(number) : null;
+    }
+
+    /**
+     * Schedules a release of the given job, reported to the steps of the given trigger action.
+     *
+     * @param triggerAction null if no step waits on the release
+     * @return the result of the scheduling, whose item is never null; it was
+     *         not created if the release was folded into an identical one
+     *         already queued
+     */
+    static Queue.ScheduleResult schedule(ParameterizedJobMixIn.ParameterizedJob project, List<ParameterValue> parameters,
+            Run<?,?> upstream, @CheckForNull ReleaseTriggerAction triggerAction) throws AbortException {
+        List<Action> actions = new ArrayList<>(4);
+        if (triggerAction != null) {
+            actions.add(triggerAction);
+        }
         actions.add(new ReleaseWrapper.ReleaseBuildBadgeAction());
-        actions.add(new SafeParametersAction(updateParametersWithDefaults(project, step.getParameters())));
-        if (run != null) {
-            actions.add(new CauseAction(new Cause.UpstreamCause(run)));
+        actions.add(new SafeParametersAction(parameters));
+        if (upstream != null) {
+            actions.add(new CauseAction(new Cause.UpstreamCause(upstream)));
         }
 
-        Queue.Item item = ParameterizedJobMixIn.scheduleBuild2((Job<?, ?>) project, 0, actions.toArray(new Action[0]));
+        // scheduled through the queue rather than ParameterizedJobMixIn, to tell apart folded releases
+        Queue.ScheduleResult result = null;
+        if (((Job<?, ?>) project).isBuildable()) {
+            result = Jenkins.getActiveInstance().getQueue().schedule2(project, 0, actions);
+        }
 
-        if (item == null || item.getFuture() == null) {
+        if (result == null || result.getItem() == null || result.getItem().getFuture() == null) {
             throw new AbortException("Failed to trigger build of " + project.getFullName());
         }
-
-        return false;
+        return result;
     }
 
     private void println(String message) throws IOException, InterruptedException {
@@ -111,6 +166,7 @@ public class ReleaseStepExecution extends StepExecution {
 
     @Override
     public void stop(@Nonnull Throwable cause) throws Exception {
+        ReleaseTriggerAction.stopStreaming(getContext());
         getContext().onFailure(cause);
     }
 
@@ -1,51 +1,253 @@
 package hudson.plugins.release.pipeline;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.CheckForNull;
 
 import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
 
+import hudson.model.Action;
 import hudson.model.Actionable;
 import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.queue.FoldableAction;
 
 /**
  * copied from org.jenkinsci.plugins.workflow.support.steps.build.BuildTriggerAction
  * @since 2.7
  */
-class ReleaseTriggerAction extends InvisibleAction {
+class ReleaseTriggerAction extends InvisibleAction implements FoldableAction {
     /** Record of one upstream build step. */
     static class Trigger {
 
         final StepContext context;
 
+        /** Key of the release within a {@link ReleaseAllStep}, null for a {@link ReleaseStep}. */
+        @CheckForNull final String releaseKey;
+
         /** Record of cancellation cause passed to {@link ReleaseStepExecution#stop}, if any. */
         @CheckForNull Throwable interruption;
 
-        Trigger(StepContext context) {
+        /** Whether the output of the release is copied into the log of the step. */
+        final boolean streamLog;
+
+        /** Copies the output of the running release, if {@link #streamLog}. */
+        transient ReleaseLogStreamer streamer;
+
+        Trigger(StepContext context, String releaseKey, boolean streamLog) {
             this.context = context;
+            this.releaseKey = releaseKey;
+            this.streamLog = streamLog;
+        }
+
+        /**
+         * Reports the successful completion of the release to the waiting step.
+         */
+        void onSuccess(Run<?,?> run) {
+            if (releaseKey == null) {
+                context.onSuccess(new RunWrapper(run, false));
+            } else {
+                ReleaseAllStepExecution.onReleaseCompleted(this, run, null);
+            }
+        }
+
+        /**
+         * Reports the failure of the release to the waiting step.
+         */
+        void onFailure(@CheckForNull Run<?,?> run, Throwable cause) {
+            if (releaseKey == null) {
+                context.onFailure(cause);
+            } else {
+                ReleaseAllStepExecution.onReleaseCompleted(this, run, cause);
+            }
         }
 
     }
 
-    private final List<Trigger> triggers;
+    /**
+     * Actions waited on by a step, by the queue item id of the release.
+     * Run and queue events of everything else only ever look at this map.
+     */
+    private static final ConcurrentMap<Long, ReleaseTriggerAction> REGISTRY = new ConcurrentHashMap<>();
+
+    private List<Trigger> triggers;
+
+    /**
+     * Queue item id of the release this action is attached to, 0 until then.
+     */
+    private long queueId;
 
     ReleaseTriggerAction(StepContext context) {
-        triggers = new ArrayList<>();
-        triggers.add(new Trigger(context));
+        this(context, null);
     }
 
-    static Iterable<Trigger> triggersFor(Actionable actionable) {
-        List<Trigger> triggers = new ArrayList<>();
-        for (final ReleaseTriggerAction action : actionable.getActions(ReleaseTriggerAction.class)) {
-            if (!action.triggers.isEmpty()) {
-                synchronized (action.triggers) {
-                    triggers.addAll(action.triggers);
+    ReleaseTriggerAction(StepContext context, String releaseKey) {
+        this(context, releaseKey, false);
+    }
+
+    ReleaseTriggerAction(StepContext context, String releaseKey, boolean streamLog) {
+        triggers = new CopyOnWriteArrayList<>();
+        triggers.add(new Trigger(context, releaseKey, streamLog));
+    }
+
+    /**
+     * Registers the action again when loaded along with its queue item or run.
+     */
+    private Object readResolve() {
+        if (!(triggers instanceof CopyOnWriteArrayList)) {
+            triggers = new CopyOnWriteArrayList<>(triggers);
+        }
+        if (queueId != 0) {
+            REGISTRY.putIfAbsent(queueId, this);
+        }
+        return this;
+    }
+
+    /**
+     * Makes this action the one of the release with the given queue item id,
+     * unless there is one already.
+     */
+    void register(long queueId) {
+        this.queueId = queueId;
+        REGISTRY.putIfAbsent(queueId, this);
+    }
+
+    /**
+     * Forgets the steps waiting on the release with the given queue item id.
+     */
+    static void unregister(long queueId) {
+        if (!REGISTRY.isEmpty()) {
+            REGISTRY.remove(queueId);
+        }
+    }
+
+    /**
+     * Takes the steps waiting on the given release off it, along with the
+     * action, so that only the caller reports the completion of the release
+     * to them. Steps attached later on get an action of their own.
+     *
+     * @return an empty list if no step waits on the release
+     */
+    @SuppressWarnings("deprecation") // TODO 2.30+ use removeAction
+    static List<Trigger> take(Run<?,?> run) {
+        if (REGISTRY.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ReleaseTriggerAction action;
+        synchronized (REGISTRY) {
+            action = REGISTRY.remove(run.getQueueId());
+            if (action == null) {
+                return Collections.emptyList();
+            }
+            run.getActions().remove(action);
+        }
+        return action.triggers;
+    }
+
+    /**
+     * Adds the action registered for the given release to its build, unless
+     * it is there already, so that it is saved along with the build.
+     */
+    static void adopt(Run<?,?> run) {
+        if (REGISTRY.isEmpty()) {
+            return;
+        }
+        synchronized (REGISTRY) {
+            ReleaseTriggerAction action = REGISTRY.get(run.getQueueId());
+            if (action != null && run.getAction(ReleaseTriggerAction.class) == null) {
+                run.addAction(action);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the given step waits on the release with the given queue item id.
+     */
+    static boolean isWaiting(long queueId, StepContext context) {
+        for (Trigger trigger : triggersFor(queueId)) {
+            if (trigger.context.equals(context)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops copying the output of the releases into the log of the given step,
+     * once it is stopped. The releases keep running.
+     */
+    static void stopStreaming(StepContext context) {
+        for (ReleaseTriggerAction action : REGISTRY.values()) {
+            for (Trigger trigger : action.triggers) {
+                if (trigger.streamer != null && trigger.context.equals(context)) {
+                    trigger.streamer.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the steps waiting on the release with the given queue item id, an
+     * empty list if it is not a release waited on.
+     * <p>
+     * Iterating the list works on a snapshot of it and needs no lock.
+     */
+    static List<Trigger> triggersFor(long queueId) {
+        if (REGISTRY.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ReleaseTriggerAction action = REGISTRY.get(queueId);
+        return action != null ? action.triggers : Collections.<Trigger>emptyList();
+    }
+
+    static List<Trigger> triggersFor(Run<?,?> run) {
+        return triggersFor(run.getQueueId());
+    }
+
+    static List<Trigger> triggersFor(Queue.Item item) {
+        return triggersFor(item.getId());
+    }
+
+    /**
+     * Hands the steps waiting on this release over to an identical release
+     * already in the queue, so that they complete along with it.
+     */
+    @Override
+    public void foldIntoExisting(Queue.Item item, Queue.Task owner, List<Action> otherActions) {
+        attachTo(item, item.getId());
+    }
+
+    /**
+     * Adds the steps waiting on this action to the given queue item or run of
+     * the release with the given queue item id.
+     *
+     * @param actionable null while the release has left the queue but its
+     *        build is not there yet, the action then goes to the build as it
+     *        starts, see {@link #adopt(Run)}
+     */
+    void attachTo(@CheckForNull Actionable actionable, long queueId) {
+        // never add to an action whose triggers are being taken
+        synchronized (REGISTRY) {
+            ReleaseTriggerAction existing = REGISTRY.get(queueId);
+            if (existing == null && actionable != null) {
+                existing = actionable.getAction(ReleaseTriggerAction.class);
+            }
+            if (existing == null) {
+                if (actionable != null) {
+                    actionable.addAction(this);
                 }
+                register(queueId);
+            } else {
+                existing.triggers.addAll(triggers);
+                existing.register(queueId);
             }
         }
-        return triggers;
     }
 
 }
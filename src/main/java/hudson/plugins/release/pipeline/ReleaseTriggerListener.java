@@ -9,14 +9,12 @@ import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.model.listeners.RunListener;
+import java.util.List;
 import java.util.logging.Level;
 
 import java.util.logging.Logger;
 
-import javax.annotation.Nonnull;
-
 import org.jenkinsci.plugins.workflow.steps.StepContext;
-import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
 
 /**
  * copied from org.jenkinsci.plugins.workflow.support.steps.build.BuildTriggerListener
@@ -29,6 +27,8 @@ public class ReleaseTriggerListener extends RunListener<Run<?,?>>{
 
     @Override
     public void onStarted(Run<?, ?> run, TaskListener listener) {
+        // steps which waited on the release while it had left the queue, without a build yet
+        ReleaseTriggerAction.adopt(run);
         for (ReleaseTriggerAction.Trigger trigger : ReleaseTriggerAction.triggersFor(run)) {
             StepContext stepContext = trigger.context;
             if (stepContext != null && stepContext.isReady()) {
@@ -37,6 +37,9 @@ public class ReleaseTriggerListener extends RunListener<Run<?,?>>{
                     TaskListener taskListener = stepContext.get(TaskListener.class);
                     // encodeTo(Run) calls getDisplayName, which does not include the project name.
                     taskListener.getLogger().println("Starting releasing: " + ModelHyperlinkNote.encodeTo("/" + run.getUrl(), run.getFullDisplayName()));
+                    if (trigger.streamLog) {
+                        trigger.streamer = ReleaseLogStreamer.start(run, taskListener);
+                    }
                 } catch (Exception e) {
                     LOGGER.log(WARNING, null, e);
                 }
@@ -46,28 +49,44 @@ public class ReleaseTriggerListener extends RunListener<Run<?,?>>{
         }
     }
 
+    /**
+     * Completes the steps waiting on the release once it is finalized, rather
+     * than completed, so that the streamed output includes its last lines.
+     */
     @Override
-    @SuppressWarnings("deprecation") // TODO 2.30+ use removeAction
-    public void onCompleted(Run<?,?> run, @Nonnull TaskListener listener) {
-        for (ReleaseTriggerAction.Trigger trigger : ReleaseTriggerAction.triggersFor(run)) {
+    public void onFinalized(Run<?,?> run) {
+        complete(run, ReleaseTriggerAction.take(run));
+    }
+
+    /**
+     * Reports the completion of the release to the given steps, taken off it
+     * by {@link ReleaseTriggerAction#take(Run)}.
+     */
+    static void complete(Run<?,?> run, List<ReleaseTriggerAction.Trigger> triggers) {
+        for (ReleaseTriggerAction.Trigger trigger : triggers) {
             LOGGER.log(Level.FINE, "completing {0} for {1}", new Object[] {run, trigger.context});
+            if (trigger.streamer != null) {
+                trigger.streamer.finish();
+            }
             if (run.getResult() == Result.SUCCESS) {
                 if (trigger.interruption == null) {
-                    trigger.context.onSuccess(new RunWrapper(run, false));
+                    trigger.onSuccess(run);
                 } else {
-                    trigger.context.onFailure(trigger.interruption);
+                    trigger.onFailure(run, trigger.interruption);
                 }
             } else {
-                trigger.context.onFailure(new AbortException(run.getFullDisplayName() + " completed with status " + run.getResult()));
+                trigger.onFailure(run, new AbortException(run.getFullDisplayName() + " completed with status " + run.getResult()));
             }
         }
-        run.getActions().removeAll(run.getActions(ReleaseTriggerAction.class));
     }
 
     @Override
     public void onDeleted(Run<?,?> run) {
-        for (ReleaseTriggerAction.Trigger trigger : ReleaseTriggerAction.triggersFor(run)) {
-            trigger.context.onFailure(new AbortException(run.getFullDisplayName() + " was deleted"));
+        for (ReleaseTriggerAction.Trigger trigger : ReleaseTriggerAction.take(run)) {
+            if (trigger.streamer != null) {
+                trigger.streamer.stop();
+            }
+            trigger.onFailure(run, new AbortException(run.getFullDisplayName() + " was deleted"));
         }
     }
 }
@@ -0,0 +1,71 @@
+package hudson.plugins.release.pipeline;
+
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Pipeline step waiting for a release triggered earlier by {@code release wait: false},
+ * completing with its build like {@link ReleaseStep} does.
+ * <p>
+ * Completes at once if the release has already completed.
+ *
+ * @since 2.7
+ */
+public class WaitForReleaseStep extends Step {
+
+    private final String job;
+
+    private final long queueId;
+
+    @DataBoundConstructor
+    public WaitForReleaseStep(String job, long queueId) {
+        this.job = job;
+        this.queueId = queueId;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * @return the id of the queue item of the release, as returned by {@link ReleaseStep}
+     */
+    public long getQueueId() {
+        return queueId;
+    }
+
+    @Override
+    public StepExecution start(StepContext stepContext) throws Exception {
+        return new WaitForReleaseStepExecution(stepContext, this);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "waitForRelease";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.WaitForReleaseStep_DisplayName();
+        }
+
+        @Override
+        public Set<Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, TaskListener.class);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package hudson.plugins.release.pipeline;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
+
+import hudson.AbortException;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+
+/**
+ * Runs a {@link WaitForReleaseStep}: hooks onto the queue item or the build of
+ * the release, or completes at once if the release has already completed.
+ *
+ * @since 2.7
+ */
+public class WaitForReleaseStepExecution extends StepExecution {
+    private static final Logger LOGGER = Logger.getLogger(WaitForReleaseStepExecution.class.getName());
+
+    transient WaitForReleaseStep step;
+
+    private final String jobName;
+
+    private final long queueId;
+
+    public WaitForReleaseStepExecution(@Nonnull StepContext context, @Nonnull WaitForReleaseStep step) {
+        super(context);
+        this.step = step;
+        this.jobName = step.getJob();
+        this.queueId = step.getQueueId();
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        final ParameterizedJobMixIn.ParameterizedJob project = ReleaseStepExecution.findJob(jobName);
+
+        // while the release is queued, the queue lock keeps it from starting meanwhile
+        final Queue.Item[] queued = new Queue.Item[1];
+        Queue.withLock(new Runnable() {
+            @Override
+            public void run() {
+                Queue.Item item = Jenkins.getActiveInstance().getQueue().getItem(queueId);
+                if (item == null || item.task != project) {
+                    return;
+                }
+                queued[0] = item;
+                if (!(item instanceof Queue.LeftItem)) {
+                    new ReleaseTriggerAction(getContext()).attachTo(item, queueId);
+                }
+            }
+        });
+        Queue.Item item = queued[0];
+        if (item != null && !(item instanceof Queue.LeftItem)) {
+            LOGGER.log(Level.FINE, "waiting for queued release {0} from {1}", new Object[] {item, getContext()});
+            return false;
+        }
+
+        Run<?,?> run = ReleaseStepExecution.findRun(jobName, queueId);
+        if (run != null) {
+            return follow(run);
+        }
+
+        if (item != null) {
+            if (((Queue.LeftItem) item).isCancelled()) {
+                throw new AbortException("The release of " + jobName + " was cancelled");
+            }
+            return waitForStart();
+        }
+
+        throw new AbortException("No release of " + jobName + " with queue id " + queueId + " found");
+    }
+
+    /**
+     * Waits for the build of a release which left the queue, but is not there
+     * yet. The step is registered by the queue item id of the release, so that
+     * {@link ReleaseTriggerListener} completes it without holding a thread.
+     *
+     * @return true if the build had already completed, and this step with it
+     */
+    private boolean waitForStart() {
+        new ReleaseTriggerAction(getContext()).attachTo(null, queueId);
+        LOGGER.log(Level.FINE, "waiting for the start of release #{0} from {1}", new Object[] {queueId, getContext()});
+
+        // the build may have started meanwhile, before the listener saw this step
+        Run<?,?> run = ReleaseStepExecution.findRun(jobName, queueId);
+        if (run == null) {
+            return false;
+        }
+        ReleaseTriggerAction.adopt(run);
+        return completeIfFinalized(run);
+    }
+
+    /**
+     * Waits for the given release build to complete.
+     * <p>
+     * The build counts as completed once it is finalized: {@link ReleaseTriggerListener}
+     * completes the steps attached until then as the build is finalized, and
+     * whichever of it and this step first takes the trigger off the build
+     * reports the completion.
+     *
+     * @return true if the build had already completed, and this step with it
+     */
+    private boolean follow(Run<?,?> run) {
+        if (run.isLogUpdated()) {
+            new ReleaseTriggerAction(getContext()).attachTo(run, run.getQueueId());
+            return completeIfFinalized(run);
+        }
+        if (run.getResult() == Result.SUCCESS) {
+            getContext().onSuccess(new RunWrapper(run, false));
+        } else {
+            getContext().onFailure(new AbortException(run.getFullDisplayName() + " completed with status " + run.getResult()));
+        }
+        return true;
+    }
+
+    /**
+     * Completes the steps waiting on the given release if it was finalized,
+     * possibly before the listener saw this step.
+     *
+     * @return true if this step was completed, false if it still waits or if
+     *         the listener took the release and completes this step
+     */
+    private boolean completeIfFinalized(Run<?,?> run) {
+        if (run.isLogUpdated()) {
+            LOGGER.log(Level.FINE, "waiting for release {0} from {1}", new Object[] {run, getContext()});
+            return false;
+        }
+        List<ReleaseTriggerAction.Trigger> triggers = ReleaseTriggerAction.take(run);
+        if (triggers.isEmpty()) {
+            return false;
+        }
+        ReleaseTriggerListener.complete(run, triggers);
+        return true;
+    }
+
+    /**
+     * Waits again after a restart, as the release is only tracked in memory
+     * until it has a queue item or build to be saved with.
+     */
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (jobName == null || ReleaseTriggerAction.isWaiting(queueId, getContext())) {
+            return;
+        }
+        try {
+            // the queue item of a release still queued carries the wait along
+            Queue.Item item = Jenkins.getActiveInstance().getQueue().getItem(queueId);
+            if (item != null && !(item instanceof Queue.LeftItem)) {
+                return;
+            }
+            Run<?,?> run = ReleaseStepExecution.findRun(jobName, queueId);
+            if (run == null) {
+                throw new AbortException("No release of " + jobName + " with queue id " + queueId + " found");
+            }
+            // loading the build registered the steps saved with it
+            if (!ReleaseTriggerAction.isWaiting(queueId, getContext())) {
+                follow(run);
+            }
+        } catch (Exception e) {
+            getContext().onFailure(e);
+        }
+    }
+
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        ReleaseTriggerAction.stopStreaming(getContext());
+        getContext().onFailure(cause);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -8,10 +8,17 @@ package hudson.plugins.release.promotion;
 import hudson.Extension;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.promoted_builds.JobPropertyImpl;
 import hudson.plugins.promoted_builds.PromotionBadge;
 import hudson.plugins.promoted_builds.PromotionCondition;
 import hudson.plugins.promoted_builds.PromotionConditionDescriptor;
+import hudson.plugins.promoted_builds.PromotionProcess;
+import hudson.plugins.release.ReleaseIndex;
+import hudson.plugins.release.ReleaseJobRegistry;
 import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+import java.io.IOException;
 import net.sf.json.JSONObject;
 import org.kohsuke.stapler.StaplerRequest;
 
@@ -25,12 +32,25 @@ public class ReleasePromotionCondition extends PromotionCondition {
 
     @Override
     public PromotionBadge isMet(AbstractBuild<?, ?> build) {
-        if (build.getAction(ReleaseBuildBadgeAction.class) != null)
+        if (isRelease(build))
             return new Badge();
         
         return null;
     }
 
+    /**
+     * Decided per build: through the index of release jobs, so that no other
+     * job gets one, then through the badge of the build, which still marks the
+     * releases of jobs no longer configured for releases.
+     */
+    private static boolean isRelease(AbstractBuild<?, ?> build) {
+        if (ReleaseJobRegistry.isReleaseJob(build.getParent())
+                && ReleaseIndex.get(build.getParent()).contains(build.getNumber())) {
+            return true;
+        }
+        return build.getAction(ReleaseBuildBadgeAction.class) != null;
+    }
+
     /**
      * Register a new instance of {@link PromotionConditionDescriptor} to this {@link PromotionCondition}
      *
@@ -44,6 +64,35 @@ public class ReleasePromotionCondition extends PromotionCondition {
         
     }
 
+    /**
+     * Considers the promotion of each release build as it completes, for the
+     * promotion processes with this condition. Other builds are not looked at.
+     *
+     * @since 2.7
+     */
+    @Extension(optional = true)
+    public static final class RunListenerImpl extends RunListener<AbstractBuild<?,?>> {
+
+        @Override
+        public void onCompleted(AbstractBuild<?,?> build, TaskListener listener) {
+            JobPropertyImpl property = build.getProject().getProperty(JobPropertyImpl.class);
+            if (property == null || !isRelease(build)) {
+                return;
+            }
+            for (PromotionProcess process : property.getActiveItems()) {
+                if (process.conditions.get(ReleasePromotionCondition.class) == null) {
+                    continue;
+                }
+                try {
+                    process.considerPromotion(build);
+                } catch (IOException e) {
+                    e.printStackTrace(listener.error("Failed to consider the promotion of " + build.getFullDisplayName()
+                            + " by " + process.getName()));
+                }
+            }
+        }
+    }
+
     @Extension(optional = true)
     public static final class DescriptorImpl extends PromotionConditionDescriptor {
 
@@ -0,0 +1,124 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebRequest;
+
+import hudson.model.Action;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersAction;
+import hudson.model.Queue;
+import hudson.model.QueueDecisionHandler;
+import hudson.model.StringParameterDefinition;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Test the {@code release/bulk} endpoint of {@link BulkReleaseAction}.
+ */
+public class TestReleasePluginBulkRelease {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testBulkRelease() throws Exception {
+        FreeStyleProject parameterized = j.createFreeStyleProject("parameterized");
+        ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.setParameterDefinitions(Arrays.asList(new ParameterDefinition [] {
+                new StringParameterDefinition("VERSION", "0.0"),
+                new StringParameterDefinition("NOTES", "none") }));
+        parameterized.getBuildWrappersList().add(wrapper);
+
+        FreeStyleProject legacy = j.createFreeStyleProject("legacy");
+        legacy.getBuildWrappersList().add(new ReleaseWrapper());
+
+        Page page = post("{\"releases\": ["
+                + "{\"job\": \"parameterized\", \"parameter\": [{\"name\": \"VERSION\", \"value\": \"1.0\"}]},"
+                + "{\"job\": \"legacy\", \"releaseVersion\": \"2.0\"}]}");
+        assertEquals(200, page.getWebResponse().getStatusCode());
+
+        JSONArray releases = JSONObject.fromObject(page.getWebResponse().getContentAsString()).getJSONArray("releases");
+        assertEquals(2, releases.size());
+        assertEquals("parameterized", releases.getJSONObject(0).getString("job"));
+        assertEquals("legacy", releases.getJSONObject(1).getString("job"));
+
+        j.waitUntilNoActivity();
+
+        FreeStyleBuild build = parameterized.getLastBuild();
+        assertNotNull(build.getAction(ReleaseBuildBadgeAction.class));
+        ParametersAction parameters = build.getAction(ParametersAction.class);
+        assertEquals("1.0", parameters.getParameter("VERSION").getValue());
+        assertEquals("Missing parameters take their default value", "none", parameters.getParameter("NOTES").getValue());
+
+        build = legacy.getLastBuild();
+        assertNotNull(build.getAction(ReleaseBuildBadgeAction.class));
+        assertEquals("2.0", build.getAction(ParametersAction.class).getParameter("RELEASE_VERSION").getValue());
+    }
+
+    @Test
+    public void testBulkReleaseIsValidatedAsAWhole() throws Exception {
+        FreeStyleProject release = j.createFreeStyleProject("release");
+        release.getBuildWrappersList().add(new ReleaseWrapper());
+        j.createFreeStyleProject("other");
+
+        Page page = post("{\"releases\": [{\"job\": \"release\"}, {\"job\": \"other\"}]}");
+        assertEquals(400, page.getWebResponse().getStatusCode());
+        assertEquals("other", JSONObject.fromObject(page.getWebResponse().getContentAsString()).getString("job"));
+
+        page = post("{\"releases\": [{\"job\": \"release\"}, {\"job\": \"missing\"}]}");
+        assertEquals(404, page.getWebResponse().getStatusCode());
+
+        j.waitUntilNoActivity();
+        assertNull("Nothing is scheduled unless every release is valid", release.getLastBuild());
+    }
+
+    @Test
+    public void testBulkReleaseIsQueuedAsAWhole() throws Exception {
+        FreeStyleProject release = j.createFreeStyleProject("release");
+        release.getBuildWrappersList().add(new ReleaseWrapper());
+        FreeStyleProject vetoed = j.createFreeStyleProject("vetoed");
+        vetoed.getBuildWrappersList().add(new ReleaseWrapper());
+        j.jenkins.setQuietPeriod(10);
+
+        Page page = post("{\"releases\": [{\"job\": \"release\"}, {\"job\": \"vetoed\"}]}");
+        assertEquals(409, page.getWebResponse().getStatusCode());
+        assertEquals("vetoed", JSONObject.fromObject(page.getWebResponse().getContentAsString()).getString("job"));
+        assertTrue("Releases queued by the request are cancelled", j.jenkins.getQueue().isEmpty());
+        assertNull(release.getLastBuild());
+    }
+
+    @TestExtension("testBulkReleaseIsQueuedAsAWhole")
+    public static class VetoingQueueDecisionHandler extends QueueDecisionHandler {
+        @Override
+        public boolean shouldSchedule(Queue.Task p, List<Action> actions) {
+            return !"vetoed".equals(p.getName());
+        }
+    }
+
+    private Page post(String body) throws Exception {
+        JenkinsRule.WebClient wc = j.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        WebRequest request = new WebRequest(new URL(j.getURL(), "release/bulk"), HttpMethod.POST);
+        request.setAdditionalHeader("Content-Type", "application/json");
+        request.setRequestBody(body);
+        return wc.getPage(request);
+    }
+}
@@ -0,0 +1,44 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
+
+/**
+ * Test the {@link ReleaseButtonColumn} of list views.
+ */
+public class TestReleasePluginButtonColumn {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testButtonForReleaseJobsOnly() throws Exception {
+        FreeStyleProject release = j.createFreeStyleProject("release");
+        release.getBuildWrappersList().add(new ReleaseWrapper());
+        FreeStyleProject other = j.createFreeStyleProject("other");
+
+        ListView view = new ListView("releases", j.jenkins);
+        view.getColumns().add(new ReleaseButtonColumn());
+        view.add(release);
+        view.add(other);
+        j.jenkins.addView(view);
+
+        HtmlPage page = j.createWebClient().getPage(view);
+        assertNotNull(page.getFirstByXPath("//a[contains(@href, 'job/release/release')]"));
+        assertNull(page.getFirstByXPath("//a[contains(@href, 'job/other/release')]"));
+
+        ReleaseButtonColumn column = new ReleaseButtonColumn();
+        assertEquals(true, column.isReleaseConfigured(release));
+        assertEquals(false, column.isReleaseConfigured(other));
+    }
+}
@@ -1,9 +1,25 @@
 package hudson.plugins.release;
 
+import hudson.Launcher;
+import hudson.XmlFile;
+import hudson.matrix.AxisList;
+import hudson.matrix.MatrixBuild;
 import hudson.matrix.MatrixProject;
+import hudson.matrix.TextAxis;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Cause;
+import hudson.model.Result;
 import hudson.tasks.ArtifactArchiver;
 import hudson.tasks.BuildStep;
 import hudson.tasks.Fingerprinter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -11,6 +27,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.Bug;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
 
 /**
  * Test integration with MatrixProject
@@ -60,4 +77,58 @@ public class TestReleasePluginMatrixJob {
         Assert.assertTrue("postMatrixBuildSteps size is not 1", resultingWrapper.getPostMatrixBuildSteps().size() == 1);
         Assert.assertTrue("Expected Fingerprinter not found in postMatrixBuildSteps", resultingWrapper.getPostMatrixBuildSteps().iterator().next() instanceof Fingerprinter);
     }
+
+    @Test
+    public void testPreMatrixBuildStepsInBackground() throws Exception {
+        final ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.getPreMatrixBuildSteps().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                listener.getLogger().println("pre matrix step");
+                return false;
+            }
+        });
+        wrapper.setPreMatrixBuildStepsInBackground(true);
+        job.getBuildWrappersList().add(wrapper);
+
+        MatrixBuild build = j.assertBuildStatus(Result.FAILURE,
+                job.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseWrapper.ReleaseBuildBadgeAction()).get());
+        Assert.assertEquals("Configurations are built anyway", 1, build.getExactRuns().size());
+        j.assertLogContains("pre matrix step", build);
+
+        j.submit(j.createWebClient().getPage(job, "configure").getFormByName("config"));
+        Assert.assertTrue(job.getBuildWrappersList().get(ReleaseWrapper.class).isPreMatrixBuildStepsInBackground());
+    }
+
+    @Test
+    public void testConfigurationBuildSteps() throws Exception {
+        job.setAxes(new AxisList(new TextAxis("platform", "linux", "windows")));
+        final ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.getPostSuccessfulConfigurationBuildSteps().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                listener.getLogger().println("publishing " + build.getBuildVariables().get("platform"));
+                return true;
+            }
+        });
+        job.getBuildWrappersList().add(wrapper);
+
+        MatrixBuild build = j.assertBuildStatusSuccess(
+                job.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseWrapper.ReleaseBuildBadgeAction()));
+        j.assertLogContains("publishing linux", build);
+        j.assertLogContains("publishing windows", build);
+        List<String> configurations = new ArrayList<String>();
+        for (ReleaseTimingAction.Phase phase : build.getAction(ReleaseTimingAction.class).getPhases()) {
+            if (phase.getId() == ReleaseTimingAction.PhaseId.POST_SUCCESSFUL_CONFIGURATION_BUILD_STEPS) {
+                configurations.add(phase.getConfiguration());
+            }
+        }
+        Collections.sort(configurations);
+        Assert.assertEquals(Arrays.asList("platform=linux", "platform=windows"), configurations);
+        Assert.assertTrue("Timings are saved with the matrix build", new XmlFile(new File(build.getRootDir(), "build.xml"))
+                .asString().contains("platform=windows"));
+
+        j.submit(j.createWebClient().getPage(job, "configure").getFormByName("config"));
+        Assert.assertEquals(1, job.getBuildWrappersList().get(ReleaseWrapper.class).getPostSuccessfulConfigurationBuildSteps().size());
+    }
 }
@@ -0,0 +1,126 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+import hudson.Functions;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Cause;
+import hudson.model.Computer;
+import hudson.model.Descriptor;
+import hudson.model.Executor;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+import hudson.tasks.BuildStep;
+
+/**
+ * Test the {@link ParallelReleaseSteps} group.
+ */
+public class TestReleasePluginParallelSteps {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testStepsRunConcurrently() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.setPostSuccessfulBuildSteps(Arrays.asList(new BuildStep [] {
+                new ParallelReleaseSteps(Arrays.asList(new BuildStep [] {
+                        new BarrierBuilder(barrier, "first step"), new BarrierBuilder(barrier, "second step") })) }));
+        prj.getBuildWrappersList().add(wrapper);
+
+        FreeStyleBuild build = j.assertBuildStatusSuccess(release(prj));
+        String log = build.getLog();
+        assertTrue("Output of each step is written as a block, in order",
+                log.indexOf("first step") < log.indexOf("second step"));
+    }
+
+    @Test
+    public void testFailingStepFailsTheGroup() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.setPostSuccessfulBuildSteps(Arrays.asList(new BuildStep [] {
+                new ParallelReleaseSteps(Arrays.asList(new BuildStep [] {
+                        new BarrierBuilder(null, "passing step"), new FailureBuilder() })) }));
+        prj.getBuildWrappersList().add(wrapper);
+
+        FreeStyleBuild build = j.assertBuildStatus(Result.FAILURE, release(prj).get());
+        assertTrue("Every step completes", build.getLog().contains("passing step"));
+    }
+
+    @Test
+    public void testStepsRunInTheExecutorContext() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.setPostSuccessfulBuildSteps(Arrays.asList(new BuildStep [] {
+                new ParallelReleaseSteps(Arrays.asList(new BuildStep [] {
+                        new ExecutorBuilder(), new ExecutorBuilder() })) }));
+        prj.getBuildWrappersList().add(wrapper);
+
+        j.assertBuildStatusSuccess(release(prj));
+    }
+
+    @Test
+    public void testOnlyOfferedAsReleaseStep() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        Descriptor descriptor = j.jenkins.getDescriptor(ParallelReleaseSteps.class);
+        assertFalse(Functions.getBuilderDescriptors(prj).contains(descriptor));
+        assertTrue(ReleaseWrapperHelper.getBuildSteps(prj).contains(descriptor));
+    }
+
+    private QueueTaskFuture<FreeStyleBuild> release(FreeStyleProject prj) {
+        return prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction());
+    }
+
+    private static class ExecutorBuilder extends TestBuilder {
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+            Executor executor = Executor.currentExecutor();
+            return executor != null && executor.getCurrentExecutable() == build
+                    && Computer.currentComputer() == build.getBuiltOn().toComputer();
+        }
+    }
+
+    private static class BarrierBuilder extends TestBuilder {
+        private final CyclicBarrier barrier;
+        private final String message;
+
+        BarrierBuilder(CyclicBarrier barrier, String message) {
+            this.barrier = barrier;
+            this.message = message;
+        }
+
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                throws InterruptedException, IOException {
+            if (barrier != null) {
+                try {
+                    // only passes if the other step runs at the same time
+                    barrier.await(30, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+            listener.getLogger().println(message);
+            return true;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package hudson.plugins.release;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Map;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -22,6 +26,7 @@ import hudson.model.ParameterDefinition;
 import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Result;
 import hudson.model.StringParameterDefinition;
+import hudson.model.TaskListener;
 import hudson.tasks.BuildStep;
 
 public class TestReleasePluginParameters {
@@ -52,6 +57,25 @@ public class TestReleasePluginParameters {
         j.assertBuildStatus(Result.SUCCESS, prj.getLastBuild());
     }
 
+    @Test
+    public void testReleaseParametersEnvironmentIsComputedOnce() throws Exception {
+        FreeStyleProject prj = j.createProject(FreeStyleProject.class, "foo");
+        ReleaseWrapper releaseWrapper = new ReleaseWrapper();
+        releaseWrapper.setParameterDefinitions(Arrays.asList(new ParameterDefinition [] {
+                new StringParameterDefinition("TEST", "test value") }));
+        prj.getBuildWrappersList().add(releaseWrapper);
+
+        scheduleReleaseBuild(prj);
+        j.waitUntilNoActivity();
+
+        AbstractBuild<?, ?> build = prj.getLastBuild();
+        SafeParametersAction action = build.getAction(SafeParametersAction.class);
+        Map<String, String> environment = action.getEnvironment(build);
+        assertEquals("test value", environment.get("TEST"));
+        assertSame(environment, action.getEnvironment(build));
+        assertEquals("test value", build.getEnvironment(TaskListener.NULL).get("TEST"));
+    }
+
     @Test
     @Issue("JENKINS-34996") // This test worked before the fix, added just as a verification
     public void testJobParameters() throws Exception {
@@ -73,6 +97,31 @@ public class TestReleasePluginParameters {
         j.assertBuildStatus(Result.SUCCESS, prj.getLastBuild());
     }
 
+    @Test
+    public void testParameterDefinitionPrecedence() throws Exception {
+        FreeStyleProject prj = j.createProject(FreeStyleProject.class, "foo");
+        StringParameterDefinition buildTest = new StringParameterDefinition("TEST", "build value");
+        StringParameterDefinition buildOther = new StringParameterDefinition("OTHER", "other value");
+        prj.addProperty(new ParametersDefinitionProperty(buildTest, buildOther));
+
+        ReleaseWrapper releaseWrapper = new ReleaseWrapper();
+        StringParameterDefinition releaseTest = new StringParameterDefinition("TEST", "release value");
+        releaseWrapper.setParameterDefinitions(Arrays.asList(new ParameterDefinition [] { releaseTest }));
+        prj.getBuildWrappersList().add(releaseWrapper);
+
+        ReleaseWrapper.ReleaseAction action = prj.getAction(ReleaseWrapper.ReleaseAction.class);
+        assertSame(releaseTest, action.getParameterDefinition("TEST"));
+        assertNull("Build parameters are only submitted when overridden", action.getParameterDefinition("OTHER"));
+
+        releaseWrapper.setOverrideBuildParameters(true);
+        assertSame("Release parameters take precedence", releaseTest, action.getParameterDefinition("TEST"));
+        assertSame(buildOther, action.getParameterDefinition("OTHER"));
+
+        StringParameterDefinition releaseOther = new StringParameterDefinition("OTHER", "release value");
+        releaseWrapper.setParameterDefinitions(Arrays.asList(new ParameterDefinition [] { releaseTest, releaseOther }));
+        assertSame(releaseOther, action.getParameterDefinition("OTHER"));
+    }
+
     public static class CheckerBuildStep extends MockBuilder {
 
         public String value;
@@ -0,0 +1,68 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+
+/**
+ * Test the release permalinks and the {@link ReleaseIndex} backing them.
+ */
+public class TestReleasePluginPermalinks {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testPermalinks() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        prj.getBuildWrappersList().add(new ReleaseWrapper());
+
+        assertNull(prj.getPermalinks().get("lastReleaseBuild").resolve(prj));
+
+        FreeStyleBuild release = release(prj);
+        FreeStyleBuild build = j.buildAndAssertSuccess(prj);
+
+        prj.getBuildersList().add(new FailureBuilder());
+        FreeStyleBuild failedRelease = release(prj);
+        j.assertBuildStatus(Result.FAILURE, failedRelease);
+
+        assertEquals(failedRelease, prj.getPermalinks().get("lastReleaseBuild").resolve(prj));
+        assertEquals(release, prj.getPermalinks().get("lastSuccessfulReleaseBuild").resolve(prj));
+
+        ReleaseIndex index = ReleaseIndex.get(prj);
+        assertTrue(index.contains(release.getNumber()));
+        assertFalse(index.contains(release.getNumber() + 1));
+        assertEquals(Integer.valueOf(release.getNumber()), index.getNumberByQueueId(release.getQueueId()));
+        assertNull("Only releases are indexed", index.getNumberByQueueId(build.getQueueId()));
+        assertTrue("Index must be stored next to the job", new File(prj.getRootDir(), ReleaseIndex.FILE_NAME).exists());
+
+        failedRelease.delete();
+        assertFalse(index.contains(failedRelease.getNumber()));
+        assertEquals(release, prj.getPermalinks().get("lastReleaseBuild").resolve(prj));
+
+        // the reloaded job gets an index of its own, read from disk
+        j.jenkins.reload();
+        FreeStyleProject reloaded = j.jenkins.getItemByFullName("foo", FreeStyleProject.class);
+        assertTrue(reloaded != prj);
+        assertTrue(ReleaseIndex.get(reloaded) != index);
+        assertEquals(release.getNumber(), prj.getPermalinks().get("lastReleaseBuild").resolve(reloaded).getNumber());
+    }
+
+    private FreeStyleBuild release(FreeStyleProject prj) throws Exception {
+        return prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction()).get();
+    }
+}
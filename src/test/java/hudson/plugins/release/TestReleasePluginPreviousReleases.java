@@ -0,0 +1,72 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
+import hudson.plugins.release.ReleaseWrapper.ReleaseAction;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+
+/**
+ * Test the paging of the previous release builds of the release page.
+ */
+public class TestReleasePluginPreviousReleases {
+
+    private static final int PAGE_SIZE = ReleaseAction.PREVIOUS_RELEASES_PAGE_SIZE;
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testPreviousReleasesArePaged() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        prj.getBuildWrappersList().add(new ReleaseWrapper());
+        int releases = PAGE_SIZE + 5;
+        for (int i = 1; i <= releases; i++) {
+            j.assertBuildStatusSuccess(prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction(),
+                    new ParametersAction(new StringParameterValue("RELEASE_VERSION", "1." + i))));
+        }
+        j.buildAndAssertSuccess(prj);
+
+        ReleaseAction action = prj.getAction(ReleaseAction.class);
+        assertEquals("Only release builds are counted", releases, action.getPreviousReleaseCount());
+
+        List<AbstractBuild> page = action.getPreviousReleaseBuilds(0, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, page.size());
+        assertEquals("Newest release first", releases, page.get(0).getNumber());
+        assertEquals(releases - PAGE_SIZE + 1, page.get(PAGE_SIZE - 1).getNumber());
+
+        page = action.getPreviousReleaseBuilds(PAGE_SIZE, PAGE_SIZE);
+        assertEquals(5, page.size());
+        assertEquals(1, page.get(4).getNumber());
+
+        assertTrue(action.getPreviousReleaseBuilds(releases, PAGE_SIZE).isEmpty());
+        assertTrue(action.getPreviousReleaseBuilds(releases + 10, PAGE_SIZE).isEmpty());
+        assertTrue(action.getPreviousReleaseBuilds(0, 0).isEmpty());
+        assertTrue(action.getPreviousReleaseBuilds(0, -1).isEmpty());
+        assertEquals(releases, action.getPreviousReleaseBuilds(-1, Integer.MAX_VALUE).size());
+        assertEquals(releases, action.getPreviousReleaseBuilds().size());
+
+        JenkinsRule.WebClient wc = j.createWebClient();
+        String first = wc.goTo("job/foo/release/previousReleases?offset=0").getWebResponse().getContentAsString();
+        assertTrue(first.contains("release_" + releases));
+        assertFalse(first.contains("release_" + (releases - PAGE_SIZE) + "\""));
+        assertTrue("More releases to load", first.contains("release_load_more"));
+
+        String last = wc.goTo("job/foo/release/previousReleases?offset=" + PAGE_SIZE).getWebResponse().getContentAsString();
+        assertTrue(last.contains("release_1\""));
+        assertFalse(last.contains("release_" + releases + "\""));
+        assertFalse("No more releases to load", last.contains("release_load_more"));
+    }
+}
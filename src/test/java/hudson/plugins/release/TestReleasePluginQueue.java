@@ -0,0 +1,64 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterValue;
+import hudson.model.Queue;
+import hudson.model.StringParameterValue;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+
+/**
+ * Test how release builds are merged with the builds waiting in the queue.
+ */
+public class TestReleasePluginQueue {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testIdenticalReleasesAreCoalesced() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        prj.getBuildWrappersList().add(new ReleaseWrapper());
+        Queue queue = j.jenkins.getQueue();
+
+        Queue.ScheduleResult first = queue.schedule2(prj, 60, new ReleaseBuildBadgeAction(), parameters("1.0"));
+        assertTrue(first.isCreated());
+
+        Queue.ScheduleResult duplicate = queue.schedule2(prj, 60, new ReleaseBuildBadgeAction(), parameters("1.0"));
+        assertFalse(duplicate.isCreated());
+        assertEquals(first.getItem(), duplicate.getItem());
+
+        assertTrue("Other parameters make another release",
+                queue.schedule2(prj, 60, new ReleaseBuildBadgeAction(), parameters("2.0")).isCreated());
+
+        queue.clear();
+    }
+
+    @Test
+    public void testReleaseIsNotMergedWithBuild() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        prj.getBuildWrappersList().add(new ReleaseWrapper());
+        Queue queue = j.jenkins.getQueue();
+
+        assertTrue(queue.schedule2(prj, 60).isCreated());
+        assertTrue("A release is never merged into a plain build",
+                queue.schedule2(prj, 60, new ReleaseBuildBadgeAction()).isCreated());
+        assertFalse(queue.schedule2(prj, 60, new ReleaseBuildBadgeAction()).isCreated());
+
+        queue.clear();
+    }
+
+    private static SafeParametersAction parameters(String version) {
+        return new SafeParametersAction(Collections.<ParameterValue>singletonList(
+                new StringParameterValue("RELEASE_VERSION", version)));
+    }
+}
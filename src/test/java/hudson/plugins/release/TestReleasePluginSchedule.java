@@ -0,0 +1,73 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebRequest;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterDefinition;
+import hudson.model.StringParameterDefinition;
+import net.sf.json.JSONObject;
+
+/**
+ * Test the JSON release submission of {@link ReleaseWrapper.ReleaseAction#doSchedule}.
+ */
+public class TestReleasePluginSchedule {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testSchedule() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.setReleaseVersionTemplate("Release $VERSION");
+        wrapper.setParameterDefinitions(Arrays.asList(new ParameterDefinition [] {
+                new StringParameterDefinition("VERSION", "0.0") }));
+        prj.getBuildWrappersList().add(wrapper);
+        // keep the release in the queue
+        j.jenkins.setNumExecutors(0);
+        prj.disable();
+
+        Page page = post("{\"parameter\": [{\"name\": \"VERSION\", \"value\": \"1.0\"}]}");
+        assertEquals("Disabled jobs cannot be released", 409, page.getWebResponse().getStatusCode());
+        prj.enable();
+
+        page = post("{\"parameter\": [{\"name\": \"VERSION\", \"value\": \"1.0\"}]}");
+        assertEquals(201, page.getWebResponse().getStatusCode());
+        JSONObject body = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals("Release 1.0", body.getString("releaseVersion"));
+        assertFalse(body.getBoolean("coalesced"));
+        assertEquals(body.getString("url"), page.getWebResponse().getResponseHeaderValue("Location"));
+        assertTrue(body.getString("url").endsWith("queue/item/" + body.getLong("queueId") + "/"));
+
+        page = post("{\"parameter\": [{\"name\": \"VERSION\", \"value\": \"1.0\"}]}");
+        assertEquals("Identical releases are coalesced", 200, page.getWebResponse().getStatusCode());
+        assertEquals(body.getLong("queueId"), JSONObject.fromObject(page.getWebResponse().getContentAsString()).getLong("queueId"));
+
+        page = post("{\"parameter\": [{\"name\": \"UNKNOWN\", \"value\": \"1.0\"}]}");
+        assertEquals(400, page.getWebResponse().getStatusCode());
+
+        j.jenkins.getQueue().clear();
+    }
+
+    private Page post(String body) throws Exception {
+        JenkinsRule.WebClient wc = j.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        WebRequest request = new WebRequest(new URL(j.getURL(), "job/foo/release/schedule"), HttpMethod.POST);
+        request.setAdditionalHeader("Content-Type", "application/json");
+        request.setRequestBody(body);
+        return wc.getPage(request);
+    }
+}
@@ -0,0 +1,89 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.Functions;
+import hudson.matrix.MatrixProject;
+import hudson.model.AbstractProject;
+import hudson.model.Descriptor;
+import hudson.model.FreeStyleProject;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.tasks.Publisher;
+import jenkins.model.Jenkins;
+
+/**
+ * Test the descriptor lists of {@link ReleaseStepDescriptors}.
+ */
+public class TestReleasePluginStepDescriptors {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testSameDescriptorsAsTheBuildSteps() throws Exception {
+        FreeStyleProject freeStyle = j.createFreeStyleProject("foo");
+        MatrixProject matrix = j.createProject(MatrixProject.class, "bar");
+
+        assertEquals(expected(freeStyle), ReleaseStepDescriptors.applicableTo(FreeStyleProject.class));
+        assertEquals(expected(matrix), ReleaseStepDescriptors.applicableTo(MatrixProject.class));
+        assertSame("Lists are computed once", ReleaseStepDescriptors.applicableTo(FreeStyleProject.class),
+                ReleaseStepDescriptors.applicableTo(FreeStyleProject.class));
+
+        List<Descriptor> all = new ArrayList<Descriptor>();
+        all.addAll(Publisher.all());
+        all.addAll(Builder.all());
+        assertEquals(all, ReleaseStepDescriptors.all());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testListsFollowTheBuilders() throws Exception {
+        List<Descriptor> before = ReleaseStepDescriptors.applicableTo(FreeStyleProject.class);
+        Descriptor late = new LateBuilder.DescriptorImpl();
+        assertFalse(before.contains(late));
+
+        Builder.all().add(late);
+        assertTrue("Lists are dropped as builders are added", ReleaseStepDescriptors.applicableTo(FreeStyleProject.class).contains(late));
+        assertTrue(ReleaseStepDescriptors.all().contains(late));
+
+        Builder.all().remove(late);
+        assertFalse(ReleaseStepDescriptors.applicableTo(FreeStyleProject.class).contains(late));
+    }
+
+    /**
+     * The publishers then the builders of the project configuration, along
+     * with the parallel release steps.
+     */
+    private static List<Descriptor> expected(AbstractProject<?,?> project) {
+        List<Descriptor> expected = new ArrayList<Descriptor>();
+        expected.addAll(Functions.getPublisherDescriptors(project));
+        expected.addAll(Functions.getBuilderDescriptors(project));
+        expected.add(Jenkins.getActiveInstance().getDescriptor(ParallelReleaseSteps.class));
+        return expected;
+    }
+
+    public static class LateBuilder extends Builder {
+        public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+            @Override
+            public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+                return true;
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "Late builder";
+            }
+        }
+    }
+}
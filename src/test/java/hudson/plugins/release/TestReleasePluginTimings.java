@@ -0,0 +1,63 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockBuilder;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+import hudson.tasks.BuildStep;
+
+/**
+ * Test the {@link ReleaseTimingAction} recorded for release builds.
+ */
+public class TestReleasePluginTimings {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testTimings() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        ReleaseWrapper wrapper = new ReleaseWrapper();
+        wrapper.setPreBuildSteps(Arrays.asList(new BuildStep [] { new MockBuilder(Result.SUCCESS) }));
+        wrapper.setPostSuccessfulBuildSteps(Arrays.asList(new BuildStep [] {
+                new MockBuilder(Result.SUCCESS), new MockBuilder(Result.SUCCESS) }));
+        prj.getBuildWrappersList().add(wrapper);
+
+        FreeStyleBuild build = j.buildAndAssertSuccess(prj);
+        assertNull("Only release builds are timed", build.getAction(ReleaseTimingAction.class));
+
+        build = j.assertBuildStatusSuccess(prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction()));
+        ReleaseTimingAction timings = build.getAction(ReleaseTimingAction.class);
+        assertNotNull(timings);
+
+        ReleaseTimingAction.Phase pre = timings.getPhase(ReleaseTimingAction.PhaseId.PRE_BUILD_STEPS);
+        assertNotNull(pre);
+        assertEquals(1, pre.getSteps().size());
+        assertTrue(pre.getDuration() >= 0);
+
+        ReleaseTimingAction.Phase post = timings.getPhase(ReleaseTimingAction.PhaseId.POST_SUCCESSFUL_BUILD_STEPS);
+        assertNotNull(post);
+        assertEquals(2, post.getSteps().size());
+        assertNull("Empty step lists are not timed", timings.getPhase(ReleaseTimingAction.PhaseId.POST_BUILD_STEPS));
+        assertNotNull(timings.getPhase(ReleaseTimingAction.PhaseId.BUILD));
+
+        assertEquals(timings, prj.getAction(ReleaseWrapper.ReleaseAction.class).getLastReleaseTimings());
+
+        String api = j.createWebClient().goTo(build.getUrl() + "api/xml?depth=3", "application/xml")
+                .getWebResponse().getContentAsString();
+        assertTrue("Phases are exported by id", api.contains("<id>PRE_BUILD_STEPS</id>"));
+    }
+}
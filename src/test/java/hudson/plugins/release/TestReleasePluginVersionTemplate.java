@@ -0,0 +1,53 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import hudson.Util;
+import hudson.util.VariableResolver;
+
+/**
+ * Test the {@link ReleaseVersionTemplate} against {@link Util#replaceMacro(String, VariableResolver)}.
+ */
+public class TestReleasePluginVersionTemplate {
+
+    @Test
+    public void testSameResultAsReplaceMacro() {
+        Map<String, String> variables = new HashMap<String, String>();
+        variables.put("RELEASE_VERSION", "1.0");
+        variables.put("A", "$B");
+        variables.put("B", "b");
+        variables.put("x.y", "dotted");
+        VariableResolver<String> resolver = new VariableResolver.ByMap<String>(variables);
+
+        String[] templates = {
+            "Release #$RELEASE_VERSION",
+            "Release ${RELEASE_VERSION}-final",
+            "$A and $B",
+            "${x.y} $x.y",
+            "$$RELEASE_VERSION costs $$5",
+            "$MISSING then $RELEASE_VERSION$RELEASE_VERSION",
+            "$",
+            "no variables",
+            "",
+        };
+        for (String template : templates) {
+            assertEquals(template, Util.replaceMacro(template, resolver),
+                    ReleaseVersionTemplate.compile(template).resolve(resolver));
+        }
+    }
+
+    @Test
+    public void testContainsVariables() {
+        assertTrue(ReleaseVersionTemplate.containsVariables("Release #$RELEASE_VERSION"));
+        assertTrue(ReleaseVersionTemplate.containsVariables("${X}"));
+        assertFalse(ReleaseVersionTemplate.containsVariables("Release #1.0"));
+        assertFalse(ReleaseVersionTemplate.containsVariables("costs $"));
+    }
+}
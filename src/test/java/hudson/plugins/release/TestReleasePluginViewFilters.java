@@ -0,0 +1,45 @@
+package hudson.plugins.release;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.TopLevelItem;
+
+/**
+ * Test the release view job filters against the {@link ReleaseJobRegistry}.
+ */
+public class TestReleasePluginViewFilters {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testFilters() throws Exception {
+        FreeStyleProject release = j.createFreeStyleProject("release");
+        release.getBuildWrappersList().add(new ReleaseWrapper());
+        FreeStyleProject other = j.createFreeStyleProject("other");
+
+        List<TopLevelItem> all = Arrays.<TopLevelItem>asList(release, other);
+
+        assertEquals(Collections.<TopLevelItem>singletonList(release),
+                new ReleaseJobsFilter().filter(all, all, null));
+        assertEquals(Arrays.<TopLevelItem>asList(other, release),
+                new AllReleaseJobsFilter().filter(Collections.<TopLevelItem>singletonList(other), all, null));
+
+        release.renameTo("renamed");
+        assertEquals(Collections.<TopLevelItem>singletonList(release),
+                new ReleaseJobsFilter().filter(all, all, null));
+
+        release.getBuildWrappersList().remove(ReleaseWrapper.class);
+        assertEquals(Collections.<TopLevelItem>emptyList(),
+                new ReleaseJobsFilter().filter(all, all, null));
+    }
+}
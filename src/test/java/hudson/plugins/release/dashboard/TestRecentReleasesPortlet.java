@@ -0,0 +1,167 @@
+package hudson.plugins.release.dashboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.acegisecurity.GrantedAuthority;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.acegisecurity.providers.UsernamePasswordAuthenticationToken;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.User;
+import hudson.plugins.release.ReleaseWrapper;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+import hudson.plugins.view.dashboard.Dashboard;
+import hudson.security.ACL;
+
+/**
+ * Test the recent releases merged by the {@link RecentReleasesPortlet}, and its feeds.
+ */
+public class TestRecentReleasesPortlet {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testRecentReleasesAreMergedNewestFirst() throws Exception {
+        FreeStyleProject a = releaseJob("a");
+        FreeStyleProject b = releaseJob("b");
+        FreeStyleProject c = releaseJob("c");
+        FreeStyleProject other = j.createFreeStyleProject("other");
+
+        FreeStyleBuild a1 = release(a);
+        FreeStyleBuild b1 = release(b);
+        j.buildAndAssertSuccess(a);
+        FreeStyleBuild a3 = release(a);
+        FreeStyleBuild c1 = release(c);
+        j.buildAndAssertSuccess(other);
+        FreeStyleBuild b2 = release(b);
+
+        List<Job> jobs = Arrays.<Job>asList(a, b, c, other);
+        assertEquals(Arrays.<Run>asList(b2, c1, a3, b1, a1), RecentReleasesPortlet.computeRecentReleases(jobs, 10));
+        assertEquals(Arrays.<Run>asList(b2, c1, a3), RecentReleasesPortlet.computeRecentReleases(jobs, 3));
+        assertEquals(Arrays.<Run>asList(), RecentReleasesPortlet.computeRecentReleases(jobs, 0));
+
+        assertFalse("Jobs which are not release jobs are not indexed",
+                new File(other.getRootDir(), "release-index.xml").exists());
+    }
+
+    @Test
+    public void testSnapshotIsReusedUntilAReleaseCompletes() throws Exception {
+        FreeStyleProject a = releaseJob("a");
+        FreeStyleProject b = releaseJob("b");
+        FreeStyleProject c = releaseJob("c");
+        release(a);
+        release(b);
+
+        RecentReleasesPortlet portlet = new RecentReleasesPortlet("releases");
+        List<Job> jobs = Arrays.<Job>asList(a, b);
+        List<Job> otherJobs = Arrays.<Job>asList(a);
+        RecentReleasesPortlet.Snapshot snapshot = portlet.getSnapshot(jobs);
+        assertSame("Nothing was released meanwhile", snapshot, portlet.getSnapshot(new ArrayList<Job>(jobs)));
+
+        RecentReleasesPortlet.Snapshot otherSnapshot = portlet.getSnapshot(otherJobs);
+        assertNotSame(snapshot, otherSnapshot);
+        assertSame("Each set of jobs has its snapshot", snapshot, portlet.getSnapshot(jobs));
+
+        release(c);
+        j.buildAndAssertSuccess(a);
+        assertSame("Only releases of the jobs shown count", snapshot, portlet.getSnapshot(jobs));
+
+        release(b);
+        assertNotSame(snapshot, portlet.getSnapshot(jobs));
+        assertSame(otherSnapshot, portlet.getSnapshot(otherJobs));
+    }
+
+    @Test
+    public void testFeeds() throws Exception {
+        FreeStyleProject prj = releaseJob("foo");
+        User.get("alice").setFullName("Alice Liddell");
+        SecurityContext context = ACL.impersonate(new UsernamePasswordAuthenticationToken("alice", "", new GrantedAuthority[0]));
+        try {
+            release(prj);
+        } finally {
+            SecurityContextHolder.setContext(context);
+        }
+        prj.getBuildersList().add(new FailureBuilder());
+        FreeStyleBuild failed = j.assertBuildStatus(Result.FAILURE,
+                prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction()).get());
+
+        Dashboard dashboard = new Dashboard("dashboard");
+        j.jenkins.addView(dashboard);
+        dashboard.add(prj);
+        RecentReleasesPortlet portlet = new RecentReleasesPortlet("releases");
+        dashboard.getTopPortlets().add(portlet);
+        String url = dashboard.getUrl() + portlet.getUrl();
+
+        WebResponse all = feed(url + "rssAll", null);
+        assertEquals(200, all.getStatusCode());
+        assertTrue(all.getContentType().startsWith("application/atom+xml"));
+        assertTrue(all.getContentAsString().contains("foo #1 (SUCCESS)"));
+        assertTrue(all.getContentAsString().contains("foo #2 (FAILURE)"));
+        assertTrue("Authors are reported by their full name", all.getContentAsString().contains("Alice Liddell"));
+        String etag = all.getResponseHeaderValue("ETag");
+        assertNotNull(etag);
+        assertNotNull(all.getResponseHeaderValue("Last-Modified"));
+
+        assertEquals("Unchanged feeds are not sent again", 304, feed(url + "rssAll", etag).getStatusCode());
+
+        WebResponse rss = feed(url + "rssAll?flavor=rss", null);
+        assertEquals(200, rss.getStatusCode());
+        assertTrue(rss.getContentAsString().contains("<rss version=\"2.0\">"));
+        assertTrue(rss.getContentAsString().contains("foo #1 (SUCCESS)"));
+
+        WebResponse failedOnly = feed(url + "rssFailed", null);
+        assertFalse(failedOnly.getContentAsString().contains("foo #1 (SUCCESS)"));
+        assertTrue(failedOnly.getContentAsString().contains("foo #2 (FAILURE)"));
+        assertFalse("Feeds with other entries have other tags", etag.equals(failedOnly.getResponseHeaderValue("ETag")));
+
+        failed.delete();
+        WebResponse changed = feed(url + "rssAll", etag);
+        assertEquals("Deleted releases change the feed", 200, changed.getStatusCode());
+        assertFalse(changed.getContentAsString().contains("foo #2 (FAILURE)"));
+    }
+
+    private WebResponse feed(String path, String etag) throws Exception {
+        JenkinsRule.WebClient wc = j.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        WebRequest request = new WebRequest(new URL(j.getURL(), path));
+        if (etag != null) {
+            request.setAdditionalHeader("If-None-Match", etag);
+        }
+        return wc.getPage(request).getWebResponse();
+    }
+
+    private FreeStyleProject releaseJob(String name) throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject(name);
+        prj.getBuildWrappersList().add(new ReleaseWrapper());
+        return prj;
+    }
+
+    private FreeStyleBuild release(FreeStyleProject prj) throws Exception {
+        return j.assertBuildStatusSuccess(prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction()));
+    }
+}
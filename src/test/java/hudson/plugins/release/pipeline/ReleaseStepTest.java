@@ -1,19 +1,35 @@
 package hudson.plugins.release.pipeline;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.FailureBuilder;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.LoggerRule;
+import org.jvnet.hudson.test.TestBuilder;
 
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
 import hudson.model.Action;
+import hudson.model.BuildListener;
 import hudson.model.FreeStyleProject;
 import hudson.model.Job;
+import hudson.model.Label;
+import hudson.model.ParameterValue;
+import hudson.model.Queue;
 import hudson.model.Result;
 import hudson.model.queue.QueueTaskFuture;
+import hudson.util.OneShotEvent;
 import hudson.plugins.release.ReleaseWrapper;
 import jenkins.model.ParameterizedJobMixIn;
 
@@ -36,6 +52,8 @@ public class ReleaseStepTest {
         WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
         us.setDefinition(new CpsFlowDefinition("release 'ds'\n echo \"release's done\"", true));
         j.assertLogContains("release's done", j.buildAndAssertSuccess(us));
+        assertNull("Trigger is not kept with the release", ds.getBuildByNumber(1).getAction(ReleaseTriggerAction.class));
+        assertTrue(ReleaseTriggerAction.triggersFor(ds.getBuildByNumber(1)).isEmpty());
         ds.getBuildByNumber(1).delete();
     }
 
@@ -52,4 +70,128 @@ public class ReleaseStepTest {
         j.assertBuildStatus(Result.FAILURE, f);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void releaseWithoutWaiting() throws Exception {
+        FreeStyleProject ds = j.createFreeStyleProject("ds");
+        ds.getBuildWrappersList().add(new ReleaseWrapper());
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition(
+                "def id = release job: 'ds', wait: false\n"
+                + "echo 'release scheduled'\n"
+                + "def run = waitForRelease job: 'ds', queueId: id\n"
+                + "echo \"released ${run.fullDisplayName}\"\n"
+                + "run = waitForRelease job: 'ds', queueId: id\n"
+                + "echo \"still released ${run.fullDisplayName}\"", true));
+        WorkflowRun b = j.buildAndAssertSuccess(us);
+        j.assertLogContains("released ds #1", b);
+        j.assertLogContains("still released ds #1", b);
+    }
+
+    @Test
+    public void waitForRunningRelease() throws Exception {
+        final OneShotEvent release = new OneShotEvent();
+        FreeStyleProject ds = j.createFreeStyleProject("ds");
+        ds.getBuildWrappersList().add(new ReleaseWrapper());
+        ds.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException {
+                release.block();
+                return true;
+            }
+        });
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition(
+                "def id = release job: 'ds', wait: false\n"
+                + "waitUntil { Jenkins.instance.getItemByFullName('ds').getBuildByNumber(1) != null }\n"
+                + "def run = waitForRelease job: 'ds', queueId: id\n"
+                + "echo \"released ${run.fullDisplayName}\"", false));
+        QueueTaskFuture<WorkflowRun> f = us.scheduleBuild2(0);
+
+        // let the release complete only once the step waits on its build
+        while (ds.getBuildByNumber(1) == null || ReleaseTriggerAction.triggersFor(ds.getBuildByNumber(1)).isEmpty()) {
+            Thread.sleep(100);
+        }
+        release.signal();
+        j.assertLogContains("released ds #1", j.assertBuildStatusSuccess(f));
+        assertTrue(ReleaseTriggerAction.triggersFor(ds.getBuildByNumber(1)).isEmpty());
+    }
+
+    @Test
+    public void releaseStreamingLog() throws Exception {
+        FreeStyleProject ds = j.createFreeStyleProject("ds");
+        ds.getBuildWrappersList().add(new ReleaseWrapper());
+        ds.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                listener.getLogger().println("releasing from downstream");
+                return true;
+            }
+        });
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition("release job: 'ds', streamLog: true\n echo 'released'", true));
+        WorkflowRun run = j.buildAndAssertSuccess(us);
+        j.assertLogContains("releasing from downstream", run);
+        String log = JenkinsRule.getLog(run);
+        assertTrue("The output of the release is streamed to its end",
+                log.contains("Finished: SUCCESS") && log.indexOf("Finished: SUCCESS") < log.indexOf("released\n"));
+    }
+
+    @Test
+    public void releaseAll() throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        a.getBuildWrappersList().add(new ReleaseWrapper());
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        b.getBuildWrappersList().add(new ReleaseWrapper());
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition(
+                "def runs = releaseAll jobs: [[job: 'a'], [job: 'b']]\n"
+                + "echo \"released ${runs.a.fullDisplayName} and ${runs.b.fullDisplayName}\"", true));
+        j.assertLogContains("released a #1 and b #1", j.buildAndAssertSuccess(us));
+    }
+
+    @Test
+    public void releaseAllFailsIfOneReleaseFails() throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        a.getBuildWrappersList().add(new ReleaseWrapper());
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        b.getBuildWrappersList().add(new ReleaseWrapper());
+        b.getBuildersList().add(new FailureBuilder());
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition("releaseAll jobs: [[job: 'a'], [job: 'b']], failFast: true", true));
+        j.assertBuildStatus(Result.FAILURE, us.scheduleBuild2(0));
+    }
+
+    @Test
+    public void releaseAllReleasesNothingIfOneCannotBeScheduled() throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        a.getBuildWrappersList().add(new ReleaseWrapper());
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        b.getBuildWrappersList().add(new ReleaseWrapper());
+        b.disable();
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition("releaseAll jobs: [[job: 'a'], [job: 'b']]", true));
+        j.assertLogContains("Failed to trigger build of b", j.assertBuildStatus(Result.FAILURE, us.scheduleBuild2(0)));
+        assertTrue("Scheduled releases are cancelled", j.jenkins.getQueue().isEmpty());
+        assertNull(a.getLastBuild());
+    }
+
+    @Test
+    public void releaseAllLeavesFoldedReleasesAlone() throws Exception {
+        FreeStyleProject a = j.createFreeStyleProject("a");
+        a.getBuildWrappersList().add(new ReleaseWrapper());
+        a.setAssignedLabel(Label.get("nowhere"));
+        FreeStyleProject b = j.createFreeStyleProject("b");
+        b.getBuildWrappersList().add(new ReleaseWrapper());
+        b.disable();
+        // an identical release queued by somebody else, which the release of a folds into
+        Queue.Item queued = ReleaseStepExecution.schedule(a, new ArrayList<ParameterValue>(), null, null).getItem();
+
+        WorkflowJob us = j.jenkins.createProject(WorkflowJob.class, "us");
+        us.setDefinition(new CpsFlowDefinition("releaseAll jobs: [[job: 'a'], [job: 'b']]", true));
+        j.assertLogContains("Failed to trigger build of b", j.assertBuildStatus(Result.FAILURE, us.scheduleBuild2(0)));
+        assertEquals("Releases not queued by the step are not cancelled", queued, j.jenkins.getQueue().getItem(queued.getId()));
+        j.jenkins.getQueue().cancel(queued);
+    }
+
+}
@@ -0,0 +1,58 @@
+package hudson.plugins.release.promotion;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.promoted_builds.JobPropertyImpl;
+import hudson.plugins.promoted_builds.PromotedBuildAction;
+import hudson.plugins.promoted_builds.PromotionProcess;
+import hudson.plugins.promoted_builds.Status;
+import hudson.plugins.release.ReleaseWrapper;
+import hudson.plugins.release.ReleaseWrapper.ReleaseBuildBadgeAction;
+
+/**
+ * Test the promotion of release builds through the {@link ReleasePromotionCondition}.
+ */
+public class TestReleasePromotionCondition {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testReleaseIsPromotedOnCompletion() throws Exception {
+        FreeStyleProject prj = j.createFreeStyleProject("foo");
+        prj.getBuildWrappersList().add(new ReleaseWrapper());
+        JobPropertyImpl property = new JobPropertyImpl(prj);
+        prj.addProperty(property);
+        PromotionProcess process = property.addProcess("released");
+        process.conditions.add(new ReleasePromotionCondition());
+
+        FreeStyleBuild build = j.buildAndAssertSuccess(prj);
+        FreeStyleBuild release = j.assertBuildStatusSuccess(
+                prj.scheduleBuild2(0, new Cause.UserIdCause(), new ReleaseBuildBadgeAction()));
+        j.waitUntilNoActivity();
+
+        PromotedBuildAction promotions = release.getAction(PromotedBuildAction.class);
+        assertNotNull(promotions);
+        Status status = promotions.getPromotion("released");
+        assertNotNull("Release is promoted as it completes", status);
+        assertTrue(status.isPromotionSuccessful());
+
+        promotions = build.getAction(PromotedBuildAction.class);
+        assertTrue("Other builds are not promoted", promotions == null || promotions.getPromotion("released") == null);
+        assertNull(new ReleasePromotionCondition().isMet(build));
+        assertNotNull(new ReleasePromotionCondition().isMet(release));
+
+        prj.getBuildWrappersList().remove(ReleaseWrapper.class);
+        assertNotNull("Past releases still meet the condition", new ReleasePromotionCondition().isMet(release));
+        assertNull(new ReleasePromotionCondition().isMet(build));
+    }
+}